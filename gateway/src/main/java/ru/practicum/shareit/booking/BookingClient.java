@@ -1,62 +1,133 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerCallGuards;
 
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+@Slf4j
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private final ResponseCache responseCache;
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         HttpComponentsClientHttpRequestFactory requestFactory,
+                         ObjectProvider<ReactorClientHttpConnector> reactiveConnector,
+                         ResponseCache responseCache,
+                         ServerCallGuards guards) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                reactiveClient(serverUrl + API_PREFIX, reactiveConnector),
+                guards.forClient("bookings")
         );
+        this.responseCache = responseCache;
     }
 
-    public ResponseEntity<Object> getBookings(Integer userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+    public Mono<ResponseEntity<Object>> getBookings(Integer userId, BookingState state, Integer from, Integer size,
+                                              String cursor) {
+        Map<String, Object> parameters = pageParameters(state, from, size, cursor);
+        return get("?" + pageQuery(cursor), userId, parameters);
     }
 
 
-    public ResponseEntity<Object> bookItem(Integer userId, BookItemRequestDto requestDto) {
-        return post("", userId, requestDto);
+    public Mono<ResponseEntity<Object>> bookItem(Integer userId, BookItemRequestDto requestDto) {
+        return post("", userId, requestDto)
+                .doOnNext(response -> responseCache.evict("/items/" + requestDto.getItemId()));
+    }
+
+    public Mono<ResponseEntity<Object>> bookItems(Integer userId, List<BookItemRequestDto> requestDtos) {
+        return post("/bulk", userId, requestDtos)
+                .doOnNext(response -> requestDtos.stream()
+                        .map(BookItemRequestDto::getItemId)
+                        .distinct()
+                        .forEach(itemId -> responseCache.evict("/items/" + itemId)));
     }
 
-    public ResponseEntity<Object> getBooking(Integer userId, Integer bookingId) {
+    public Mono<ResponseEntity<Object>> getBooking(Integer userId, Integer bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> getAllOwner(Integer ownerId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size
-        );
+    public Mono<ResponseEntity<Object>> getAllOwner(Integer ownerId, BookingState state, Integer from, Integer size,
+                                              String cursor) {
+        Map<String, Object> parameters = pageParameters(state, from, size, cursor);
+        return get("/owner?" + pageQuery(cursor), ownerId, parameters);
+    }
 
-        return get("/owner?state={state}&from={from}&size={size}", ownerId, parameters);
+    public Mono<ResponseEntity<Object>> update(Integer userId, Integer bookingId, Boolean approved) {
+        Map<String, Object> parameters = Map.of("approved", approved);
+        return patch("/" + bookingId + "?approved={approved}", userId, parameters, null)
+                .doOnNext(response -> evictBookedItems(response, false));
     }
 
-    public ResponseEntity<Object> update(Integer userId, Integer bookingId, Boolean approved) {
+    public Mono<ResponseEntity<Object>> updateAll(Integer userId, List<Integer> bookingIds, Boolean approved) {
         Map<String, Object> parameters = Map.of("approved", approved);
-        return patch("/" + bookingId + "?approved={approved}", userId, parameters, null);
+        return patch("/bulk?approved={approved}", userId, parameters, bookingIds)
+                .doOnNext(response -> evictBookedItems(response, true));
+    }
+
+    /**
+     * Сбрасывает ответы по вещам, бронирования которых изменил сервер: id вещи берётся из тела ответа.
+     * Отклонённый запрос (4xx) ничего не меняет, а если вещи определить нельзя, сбрасываются ответы по всем вещам.
+     */
+    private void evictBookedItems(ResponseEntity<Object> response, boolean bulk) {
+        if (response.getStatusCode().is4xxClientError()) {
+            return;
+        }
+        try {
+            JsonNode body = JSON.readTree((byte[]) response.getBody());
+            if (response.getStatusCode().is2xxSuccessful() && body != null && !body.isMissingNode()) {
+                for (JsonNode booking : bulk ? body.findValues("booking") : List.of(body)) {
+                    JsonNode itemId = booking.path("item").path("id");
+                    if (!itemId.isMissingNode()) {
+                        responseCache.evict("/items/" + itemId.asInt());
+                    }
+                }
+                return;
+            }
+        } catch (IOException | ClassCastException | IllegalArgumentException e) {
+            log.warn("Не удалось определить вещи по ответу сервера: {}", e.getMessage());
+        }
+        responseCache.evictPrefix("/items/");
+    }
+
+    private static Map<String, Object> pageParameters(BookingState state, Integer from, Integer size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("state", state.name());
+        parameters.put("from", from);
+        parameters.put("size", size);
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+        }
+        return parameters;
+    }
+
+    private static String pageQuery(String cursor) {
+        String query = "state={state}&from={from}&size={size}";
+        return cursor == null ? query : query + "&cursor={cursor}";
     }
 }
\ No newline at end of file
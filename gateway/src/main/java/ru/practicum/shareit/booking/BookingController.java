@@ -13,6 +13,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.user.markers.Create;
@@ -21,6 +22,8 @@ import javax.validation.Valid;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.util.List;
 
 import static ru.practicum.shareit.Constants.USER_HEADER;
 
@@ -33,46 +36,63 @@ public class BookingController {
     private final BookingClient bookingClient;
 
     @GetMapping
-    public ResponseEntity<Object> getBookings(@RequestHeader(USER_HEADER) Integer userId,
+    public Mono<ResponseEntity<Object>> getBookings(@RequestHeader(USER_HEADER) Integer userId,
                                               @RequestParam(name = "state", defaultValue = "ALL") String stateParam,
                                               @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                              @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+                                              @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                              @RequestParam(name = "cursor", required = false) String cursor) {
         BookingState state = BookingState.from(stateParam).orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
-        log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
-        return bookingClient.getBookings(userId, state, from, size);
+        log.info("Get booking with state {}, userId={}, from={}, size={}, cursor={}", stateParam, userId, from, size, cursor);
+        return bookingClient.getBookings(userId, state, from, size, cursor);
     }
 
     @PostMapping
-    public ResponseEntity<Object> bookItem(@RequestHeader(USER_HEADER) Integer userId,
+    public Mono<ResponseEntity<Object>> bookItem(@RequestHeader(USER_HEADER) Integer userId,
                                            @Validated(Create.class) @RequestBody @Valid BookItemRequestDto requestDto) {
         log.info("Creating booking {}, userId={}", requestDto, userId);
         return bookingClient.bookItem(userId, requestDto);
     }
 
+    @PostMapping("/bulk")
+    public Mono<ResponseEntity<Object>> bookItems(@RequestHeader(USER_HEADER) Integer userId,
+                                                  @RequestBody @Size(min = 1, max = 100) List<@Valid BookItemRequestDto> requestDtos) {
+        log.info("POST запрос на создание {} бронирований от пользователя с id: {}", requestDtos.size(), userId);
+        return bookingClient.bookItems(userId, requestDtos);
+    }
+
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> getBooking(@RequestHeader(USER_HEADER) Integer userId,
+    public Mono<ResponseEntity<Object>> getBooking(@RequestHeader(USER_HEADER) Integer userId,
                                              @PathVariable Integer bookingId) {
         log.info("Get booking {}, userId={}", bookingId, userId);
         return bookingClient.getBooking(userId, bookingId);
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<Object> getAllOwner(@RequestHeader(USER_HEADER) Integer ownerId,
+    public Mono<ResponseEntity<Object>> getAllOwner(@RequestHeader(USER_HEADER) Integer ownerId,
                                               @RequestParam(value = "state", defaultValue = "ALL") String bookingState,
                                               @RequestParam(value = "from", defaultValue = "0") @Min(0) Integer from,
-                                              @RequestParam(value = "size", defaultValue = "10") @Min(1) Integer size) {
+                                              @RequestParam(value = "size", defaultValue = "10") @Min(1) Integer size,
+                                              @RequestParam(value = "cursor", required = false) String cursor) {
         BookingState state = BookingState.from(bookingState)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + bookingState));
-        log.info("GET запрос на получение списка всех бронирований c state {}, userId={}, from={}, size={}", bookingState, ownerId, from, size);
-        return bookingClient.getAllOwner(ownerId, state, from, size);
+        log.info("GET запрос на получение списка всех бронирований c state {}, userId={}, from={}, size={}, cursor={}", bookingState, ownerId, from, size, cursor);
+        return bookingClient.getAllOwner(ownerId, state, from, size, cursor);
     }
 
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<Object> updateStatus(@RequestHeader(USER_HEADER) Integer userId,
+    public Mono<ResponseEntity<Object>> updateStatus(@RequestHeader(USER_HEADER) Integer userId,
                                                @PathVariable("bookingId") Integer bookingId,
                                                @RequestParam("approved") Boolean approved) {
         log.info("PATCH запрос на обновление статуса бронирования вещи : {} от владельца с id: {}", bookingId, userId);
         return bookingClient.update(userId, bookingId, approved);
     }
 
+    @PatchMapping("/bulk")
+    public Mono<ResponseEntity<Object>> updateStatuses(@RequestHeader(USER_HEADER) Integer userId,
+                                                 @RequestParam("approved") Boolean approved,
+                                                 @RequestBody @Size(min = 1, max = 100) List<Integer> bookingIds) {
+        log.info("PATCH запрос на обновление статуса бронирований {} от владельца с id: {}", bookingIds, userId);
+        return bookingClient.updateAll(userId, bookingIds, approved);
+    }
+
 }
\ No newline at end of file
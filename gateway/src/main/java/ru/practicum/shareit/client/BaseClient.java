@@ -1,14 +1,23 @@
 package ru.practicum.shareit.client;
 
+import io.github.resilience4j.bulkhead.Bulkhead;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 
+import java.io.OutputStream;
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 
@@ -16,80 +25,158 @@ import static ru.practicum.shareit.Constants.USER_HEADER;
 
 public class BaseClient {
     protected final RestTemplate rest;
+    @Nullable
+    protected final WebClient web;
+    @Nullable
+    private final ServerCallGuard guard;
+    private final SingleFlight<ResponseEntity<Object>> inFlightGets = new SingleFlight<>();
 
     public BaseClient(RestTemplate rest) {
+        this(rest, null, null);
+    }
+
+    /**
+     * При переданном {@code web} запросы к серверу выполняются неблокирующе через WebClient,
+     * иначе — через RestTemplate в потоке запроса. {@code guard} ограничивает число одновременных
+     * запросов и прекращает обращения к серверу, пока тот отвечает ошибками или слишком медленно.
+     */
+    public BaseClient(RestTemplate rest, @Nullable WebClient web, @Nullable ServerCallGuard guard) {
         this.rest = rest;
+        this.web = web;
+        this.guard = guard;
+    }
+
+    @Nullable
+    protected static WebClient reactiveClient(String baseUrl, ObjectProvider<ReactorClientHttpConnector> connector) {
+        ReactorClientHttpConnector clientConnector = connector.getIfAvailable();
+        if (clientConnector == null) {
+            return null;
+        }
+        return WebClient.builder()
+                .uriBuilderFactory(new DefaultUriBuilderFactory(baseUrl))
+                .clientConnector(clientConnector)
+                .build();
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected Mono<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Integer userId) {
+    protected Mono<ResponseEntity<Object>> get(String path, Integer userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Integer userId, @Nullable Map<String, Object> parameters) {
+    protected Mono<ResponseEntity<Object>> get(String path, Integer userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    /**
+     * GET для ответа из {@link ResponseCache}: объединяются только запросы, начатые при одной версии кэша.
+     */
+    protected Mono<ResponseEntity<Object>> get(String path, Integer userId, @Nullable Map<String, Object> parameters,
+                                               long cacheVersion) {
+        return inFlightGets.execute(requestKey(path, userId, parameters) + " v" + cacheVersion,
+                () -> sendRequest(HttpMethod.GET, path, userId, parameters, null));
+    }
+
+    protected <T> Mono<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Integer userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, Integer userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, Integer userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, Integer userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Integer userId) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Integer userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Integer userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Integer userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected Mono<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Integer userId) {
+    protected Mono<ResponseEntity<Object>> delete(String path, Integer userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Integer userId, @Nullable Map<String, Object> parameters) {
+    protected Mono<ResponseEntity<Object>> delete(String path, Integer userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Integer userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+    /**
+     * Копирует тело ответа сервера в {@code output} по мере получения, не собирая его в памяти.
+     * Длинная выгрузка ограничивается только своим bulkhead: circuit breaker учитывал бы её как медленный вызов.
+     */
+    protected void stream(String path, OutputStream output, Bulkhead bulkhead) {
+        bulkhead.executeRunnable(() -> rest.execute(path, HttpMethod.GET,
+                request -> request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON)),
+                response -> StreamUtils.copy(response.getBody(), output)));
+    }
+
+    private <T> Mono<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Integer userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        if (method == HttpMethod.GET) {
+            return inFlightGets.execute(requestKey(path, userId, parameters),
+                    () -> sendRequest(method, path, userId, parameters, body));
+        }
+        return sendRequest(method, path, userId, parameters, body);
+    }
+
+    private <T> Mono<ResponseEntity<Object>> sendRequest(HttpMethod method, String path, Integer userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        Mono<ResponseEntity<Object>> call = web == null
+                ? Mono.fromCallable(() -> sendBlockingRequest(method, path, userId, parameters, body))
+                : sendReactiveRequest(method, path, userId, parameters, body);
+        return guard == null ? call : guard.protect(call);
+    }
+
+    private <T> Mono<ResponseEntity<Object>> sendReactiveRequest(HttpMethod method, String path, Integer userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        WebClient.RequestBodySpec request = web.method(method)
+                .uri(path, parameters != null ? parameters : Map.of())
+                .headers(headers -> headers.addAll(defaultHeaders(userId)));
+        WebClient.RequestHeadersSpec<?> spec = body != null ? request.bodyValue(body) : request;
+        return spec.exchangeToMono(response -> {
+            if (response.statusCode().isError()) {
+                return response.bodyToMono(byte[].class)
+                        .map(errorBody -> ResponseEntity.status(response.rawStatusCode()).<Object>body(errorBody))
+                        .defaultIfEmpty(ResponseEntity.status(response.rawStatusCode()).build());
+            }
+            return response.toEntity(byte[].class)
+                    .map(BaseClient::prepareGatewayResponse);
+        });
+    }
+
+    private <T> ResponseEntity<Object> sendBlockingRequest(HttpMethod method, String path, Integer userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
         HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
 
-        ResponseEntity<Object> shareitServerResponse;
+        ResponseEntity<byte[]> shareitServerResponse;
         try {
             if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
+                shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class, parameters);
             } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
+                shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class);
             }
         } catch (HttpStatusCodeException e) {
             return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
@@ -97,6 +184,13 @@ public class BaseClient {
         return prepareGatewayResponse(shareitServerResponse);
     }
 
+    private String requestKey(String path, Integer userId, @Nullable Map<String, Object> parameters) {
+        URI uri = parameters != null
+                ? rest.getUriTemplateHandler().expand(path, parameters)
+                : rest.getUriTemplateHandler().expand(path);
+        return uri + " " + userId;
+    }
+
     private HttpHeaders defaultHeaders(Integer userId) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -107,9 +201,16 @@ public class BaseClient {
         return headers;
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
+    /**
+     * Тело ответа сервера передаётся клиенту как есть, без десериализации в промежуточные объекты.
+     */
+    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<byte[]> response) {
         if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(response.getHeaders());
+            headers.remove(HttpHeaders.TRANSFER_ENCODING);
+            headers.remove(HttpHeaders.CONNECTION);
+            return ResponseEntity.status(response.getStatusCode()).headers(headers).body(response.getBody());
         }
 
         ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
@@ -0,0 +1,153 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * Ограниченный по размеру LRU-кэш успешных ответов сервера на GET-запросы с временем жизни записи.
+ * Ключ — путь ресурса и id пользователя, так как вещь выглядит по-разному для владельца и остальных.
+ */
+@Slf4j
+@Component
+public class ResponseCache {
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<Key, CachedResponse> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private long version;
+
+    public ResponseCache(MeterRegistry meterRegistry,
+                         @Value("${shareit-gateway.cache.enabled:false}") boolean enabled,
+                         @Value("${shareit-gateway.cache.max-entries:10000}") int maxEntries,
+                         @Value("${shareit-gateway.cache.ttl-ms:30000}") long ttlMillis) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedResponse> eldest) {
+                if (size() > ResponseCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        FunctionCounter.builder("shareit.gateway.cache.hits", hits, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("shareit.gateway.cache.misses", misses, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("shareit.gateway.cache.evictions", evictions, AtomicLong::get)
+                .register(meterRegistry);
+        Gauge.builder("shareit.gateway.cache.size", this, ResponseCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Возвращает закэшированный ответ либо запрашивает сервер и сохраняет успешный ответ.
+     * Загрузчик получает версию кэша на момент промаха: объединять можно только запросы с одной версией,
+     * иначе ответ, полученный до изменения данных, сохранился бы как свежий.
+     */
+    public Mono<ResponseEntity<Object>> get(String path, Integer userId,
+                                            LongFunction<Mono<ResponseEntity<Object>>> loader) {
+        if (!enabled) {
+            synchronized (this) {
+                return loader.apply(version);
+            }
+        }
+        Key key = new Key(path, userId);
+        long loadVersion;
+        synchronized (this) {
+            CachedResponse entry = entries.get(key);
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                hits.incrementAndGet();
+                return Mono.just(entry.response);
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+            loadVersion = version;
+        }
+        misses.incrementAndGet();
+        return loader.apply(loadVersion)
+                .doOnNext(response -> {
+                    if (response.getStatusCode().is2xxSuccessful()) {
+                        put(key, response, loadVersion);
+                    }
+                });
+    }
+
+    /**
+     * Удаляет ответы по ресурсу для всех пользователей.
+     */
+    public synchronized void evict(String path) {
+        version++;
+        entries.keySet().removeIf(key -> key.path.equals(path));
+    }
+
+    /**
+     * Удаляет ответы по всем ресурсам, путь которых начинается с префикса.
+     */
+    public synchronized void evictPrefix(String prefix) {
+        version++;
+        entries.keySet().removeIf(key -> key.path.startsWith(prefix));
+    }
+
+    /**
+     * Удаляет все ответы, например при изменении или удалении пользователя, данные которого входят в другие ресурсы.
+     */
+    public synchronized void clear() {
+        version++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private synchronized void put(Key key, ResponseEntity<Object> response, long loadVersion) {
+        if (loadVersion != version) {
+            log.debug("Ответ по {} устарел во время загрузки и не кэшируется", key.path);
+            return;
+        }
+        entries.put(key, new CachedResponse(response, System.currentTimeMillis() + ttlMillis));
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class Key {
+        private final String path;
+        private final Integer userId;
+    }
+
+    @RequiredArgsConstructor
+    private static final class CachedResponse {
+        private final ResponseEntity<Object> response;
+        private final long expiresAt;
+    }
+}
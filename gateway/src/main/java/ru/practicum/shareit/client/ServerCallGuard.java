@@ -0,0 +1,40 @@
+package ru.practicum.shareit.client;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+/**
+ * Bulkhead и circuit breaker вокруг обращений одного клиента к серверу.
+ * Ответы сервера 5xx учитываются как ошибки, но возвращаются клиенту без изменений.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ServerCallGuard {
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+
+    public Mono<ResponseEntity<Object>> protect(Mono<ResponseEntity<Object>> call) {
+        return call
+                .flatMap(response -> response.getStatusCode().is5xxServerError()
+                        ? Mono.error(new ServerErrorResponseException(response))
+                        : Mono.just(response))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .onErrorResume(ServerErrorResponseException.class, e -> Mono.just(e.response));
+    }
+
+    private static class ServerErrorResponseException extends RuntimeException {
+        private final transient ResponseEntity<Object> response;
+
+        ServerErrorResponseException(ResponseEntity<Object> response) {
+            super("Сервер ответил статусом " + response.getStatusCodeValue(), null, false, false);
+            this.response = response;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.client;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Выдаёт клиентам отдельные bulkhead и circuit breaker по имени ресурса, настройки — resilience4j.*.
+ */
+@Component
+@RequiredArgsConstructor
+public class ServerCallGuards {
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
+
+    public ServerCallGuard forClient(String name) {
+        return new ServerCallGuard(circuitBreakerRegistry.circuitBreaker(name), bulkheadRegistry.bulkhead(name));
+    }
+
+    /**
+     * Отдельный bulkhead для длинных выгрузок ресурса, чтобы они не занимали разрешения обычных запросов.
+     */
+    public Bulkhead forStream(String name) {
+        return bulkheadRegistry.bulkhead(name + "-stream");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.client;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Объединяет одновременные одинаковые запросы: пока запрос к серверу выполняется,
+ * все запросы с тем же ключом получают его результат вместо собственного обращения к серверу.
+ */
+public class SingleFlight<T> {
+    private final Map<String, Mono<T>> inFlight = new ConcurrentHashMap<>();
+
+    public Mono<T> execute(String key, Supplier<Mono<T>> loader) {
+        return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> loader.get()
+                .doFinally(signal -> inFlight.remove(k))
+                .cache()));
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+}
\ No newline at end of file
@@ -1,46 +1,77 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerCallGuards;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
+    private final ResponseCache responseCache;
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      HttpComponentsClientHttpRequestFactory requestFactory,
+                      ObjectProvider<ReactorClientHttpConnector> reactiveConnector,
+                      ResponseCache responseCache,
+                      ServerCallGuards guards) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                reactiveClient(serverUrl + API_PREFIX, reactiveConnector),
+                guards.forClient("items")
         );
+        this.responseCache = responseCache;
     }
 
-    public ResponseEntity<Object> create(Integer userId, ItemDto itemDto) {
-        return post("", userId, itemDto);
+    public Mono<ResponseEntity<Object>> create(Integer userId, ItemDto itemDto) {
+        return post("", userId, itemDto)
+                .doOnNext(response -> {
+                    if (itemDto.getRequestId() != null) {
+                        responseCache.evict("/requests/" + itemDto.getRequestId());
+                    }
+                });
     }
 
-    public ResponseEntity<Object> update(Integer userId, Integer itemId, ItemDto itemDto) {
-        return patch("/" + itemId, userId, itemDto);
+    public Mono<ResponseEntity<Object>> importItems(Integer userId, List<ItemDto> itemDtos) {
+        return post("/import", userId, itemDtos)
+                .doOnNext(response -> responseCache.evictPrefix("/requests/"));
     }
 
-    public ResponseEntity<Object> get(Integer userId, Integer itemId) {
-        return get("/" + itemId, userId, null);
+    public Mono<ResponseEntity<Object>> update(Integer userId, Integer itemId, ItemDto itemDto) {
+        return patch("/" + itemId, userId, itemDto)
+                .doOnNext(response -> {
+                    responseCache.evict(API_PREFIX + "/" + itemId);
+                    responseCache.evictPrefix("/requests/");
+                });
     }
 
-    public ResponseEntity<Object> getAll(Integer userId, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> get(Integer userId, Integer itemId) {
+        return responseCache.get(API_PREFIX + "/" + itemId, userId,
+                version -> get("/" + itemId, userId, null, version));
+    }
+
+    public Mono<ResponseEntity<Object>> getAll(Integer userId, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -48,22 +79,41 @@ public class ItemClient extends BaseClient {
         return get("?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> searchItems(Integer userId, String text, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getItemsByIds(Integer userId, List<Integer> ids) {
+        Map<String, Object> parameters = Map.of(
+                "ids", ids.stream().map(String::valueOf).collect(Collectors.joining(","))
+        );
+        return get("/batch?ids={ids}", userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> searchItems(Integer userId, String text, Integer from, Integer size, Boolean ranked) {
         if (text.isBlank()) {
-            return ResponseEntity.ok(Collections.emptyList());
+            return Mono.just(ResponseEntity.ok(Collections.emptyList()));
         }
 
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size,
-                "text", text
+                "text", text,
+                "ranked", ranked
         );
 
-        return get("/search?from={from}&size={size}&text={text}", userId, parameters);
+        return get("/search?from={from}&size={size}&text={text}&ranked={ranked}", userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> getAvailability(Integer userId, List<Integer> itemIds, LocalDateTime from,
+                                                  LocalDateTime to) {
+        Map<String, Object> parameters = Map.of(
+                "itemIds", itemIds.stream().map(String::valueOf).collect(Collectors.joining(",")),
+                "from", from.toString(),
+                "to", to.toString()
+        );
+        return get("/availability?itemIds={itemIds}&from={from}&to={to}", userId, parameters);
     }
 
-    public ResponseEntity<Object> createComment(Integer userId, CommentDto commentDto, Integer itemId) {
-        return post("/" + itemId + "/comment", userId, commentDto);
+    public Mono<ResponseEntity<Object>> createComment(Integer userId, CommentDto commentDto, Integer itemId) {
+        return post("/" + itemId + "/comment", userId, commentDto)
+                .doOnNext(response -> responseCache.evict(API_PREFIX + "/" + itemId));
     }
 
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,11 +14,14 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
+import java.time.LocalDateTime;
+import java.util.List;
 
 import static ru.practicum.shareit.Constants.USER_HEADER;
 
@@ -30,14 +34,21 @@ public class ItemController {
     private final ItemClient itemClient;
 
     @PostMapping
-    public ResponseEntity<Object> create(@RequestHeader(USER_HEADER) Integer userId,
+    public Mono<ResponseEntity<Object>> create(@RequestHeader(USER_HEADER) Integer userId,
                                          @Valid @RequestBody ItemDto itemDto) {
         log.info("POST запрос на создание новой вещи: {} от пользователя c id: {}", itemDto, userId);
         return itemClient.create(userId, itemDto);
     }
 
+    @PostMapping("/import")
+    public Mono<ResponseEntity<Object>> importItems(@RequestHeader(USER_HEADER) Integer userId,
+                                                    @RequestBody List<ItemDto> itemDtos) {
+        log.info("POST запрос на импорт {} вещей от пользователя c id: {}", itemDtos.size(), userId);
+        return itemClient.importItems(userId, itemDtos);
+    }
+
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> update(@RequestHeader(USER_HEADER) Integer userId,
+    public Mono<ResponseEntity<Object>> update(@RequestHeader(USER_HEADER) Integer userId,
                                          @RequestBody ItemDto itemDto,
                                          @PathVariable("itemId") Integer itemId) {
         log.info("PATCH запрос на обновление вещи id: {} пользователя c id: {}", itemId, userId);
@@ -45,31 +56,48 @@ public class ItemController {
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> get(@RequestHeader(USER_HEADER) Integer userId,
+    public Mono<ResponseEntity<Object>> get(@RequestHeader(USER_HEADER) Integer userId,
                                       @PathVariable Integer itemId) {
         log.info("GET запрос на получение вещи c id: {}", itemId);
         return itemClient.get(userId, itemId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAll(@RequestHeader(USER_HEADER) Integer userId,
+    public Mono<ResponseEntity<Object>> getAll(@RequestHeader(USER_HEADER) Integer userId,
                                          @RequestParam(value = "from", defaultValue = "0") @Min(0) Integer from,
                                          @RequestParam(value = "size", defaultValue = "10") @Min(1) Integer size) {
         log.info("GET запрос на получение всех вещей пользователя c id: {}", userId);
         return itemClient.getAll(userId, from, size);
     }
 
+    @GetMapping("/batch")
+    public Mono<ResponseEntity<Object>> getItemsByIds(@RequestHeader(USER_HEADER) Integer userId,
+                                                      @RequestParam List<Integer> ids) {
+        log.info("GET запрос на получение вещей {}", ids);
+        return itemClient.getItemsByIds(userId, ids);
+    }
+
     @GetMapping("/search")
-    public ResponseEntity<Object> searchItems(@RequestHeader(USER_HEADER) Integer userId,
+    public Mono<ResponseEntity<Object>> searchItems(@RequestHeader(USER_HEADER) Integer userId,
                                               @RequestParam(name = "text") String text,
                                               @RequestParam(value = "from", defaultValue = "0") @Min(0) Integer from,
-                                              @RequestParam(value = "size", defaultValue = "10") @Min(1) Integer size) {
+                                              @RequestParam(value = "size", defaultValue = "10") @Min(1) Integer size,
+                                              @RequestParam(value = "ranked", defaultValue = "false") Boolean ranked) {
         log.info("GET запрос на поиск всех вещей c текстом: {}", text);
-        return itemClient.searchItems(userId, text, from, size);
+        return itemClient.searchItems(userId, text, from, size, ranked);
+    }
+
+    @GetMapping("/availability")
+    public Mono<ResponseEntity<Object>> getAvailability(@RequestHeader(USER_HEADER) Integer userId,
+                                                  @RequestParam List<Integer> itemIds,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("GET запрос на получение свободных периодов вещей {} c {} по {}", itemIds, from, to);
+        return itemClient.getAvailability(userId, itemIds, from, to);
     }
 
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> createComment(@RequestHeader(USER_HEADER) Integer userId,
+    public Mono<ResponseEntity<Object>> createComment(@RequestHeader(USER_HEADER) Integer userId,
                                                 @Validated @RequestBody CommentDto commentDto,
                                                 @PathVariable Integer itemId) {
         return itemClient.createComment(userId, commentDto, itemId);
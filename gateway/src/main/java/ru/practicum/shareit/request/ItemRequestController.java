@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import javax.validation.Valid;
@@ -29,25 +30,25 @@ public class ItemRequestController {
     private final RequestClient requestClient;
 
     @PostMapping
-    public ResponseEntity<Object> add(@RequestHeader(USER_HEADER) Integer userId,
+    public Mono<ResponseEntity<Object>> add(@RequestHeader(USER_HEADER) Integer userId,
                                       @Valid @RequestBody ItemRequestDto requestDto) {
         return requestClient.addNewRequest(userId, requestDto);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getUserRequests(@RequestHeader(USER_HEADER) Integer userId) {
+    public Mono<ResponseEntity<Object>> getUserRequests(@RequestHeader(USER_HEADER) Integer userId) {
         return requestClient.getUserRequests(userId);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getAllRequests(@RequestHeader(USER_HEADER) Integer userId,
+    public Mono<ResponseEntity<Object>> getAllRequests(@RequestHeader(USER_HEADER) Integer userId,
                                                  @RequestParam(name = "from", defaultValue = "0") @Min(0) Integer from,
                                                  @RequestParam(value = "size", defaultValue = "10") @Min(1) Integer size) {
         return requestClient.getAllRequests(userId, from, size);
     }
 
     @GetMapping("/{requestId}")
-    public ResponseEntity<Object> get(@RequestHeader(USER_HEADER) Integer userId,
+    public Mono<ResponseEntity<Object>> get(@RequestHeader(USER_HEADER) Integer userId,
                                       @PathVariable Integer requestId) {
         return requestClient.getRequestById(userId, requestId);
     }
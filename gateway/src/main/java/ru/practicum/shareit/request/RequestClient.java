@@ -1,13 +1,18 @@
 package ru.practicum.shareit.request;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerCallGuards;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import java.util.Map;
@@ -16,27 +21,35 @@ import java.util.Map;
 public class RequestClient extends BaseClient {
 
     private static final String API_PREFIX = "/requests";
+    private final ResponseCache responseCache;
 
     @Autowired
-    public RequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public RequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         HttpComponentsClientHttpRequestFactory requestFactory,
+                         ObjectProvider<ReactorClientHttpConnector> reactiveConnector,
+                         ResponseCache responseCache,
+                         ServerCallGuards guards) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                reactiveClient(serverUrl + API_PREFIX, reactiveConnector),
+                guards.forClient("requests")
         );
+        this.responseCache = responseCache;
     }
 
-    public ResponseEntity<Object> addNewRequest(Integer userId, ItemRequestDto requestDto) {
+    public Mono<ResponseEntity<Object>> addNewRequest(Integer userId, ItemRequestDto requestDto) {
         return post("", userId, requestDto);
     }
 
 
-    public ResponseEntity<Object> getUserRequests(Integer userId) {
+    public Mono<ResponseEntity<Object>> getUserRequests(Integer userId) {
         return get("", userId);
     }
 
-    public ResponseEntity<Object> getAllRequests(Integer userId, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getAllRequests(Integer userId, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -46,7 +59,8 @@ public class RequestClient extends BaseClient {
     }
 
 
-    public ResponseEntity<Object> getRequestById(Integer userId, Integer requestId) {
-        return get("/" + requestId, userId);
+    public Mono<ResponseEntity<Object>> getRequestById(Integer userId, Integer requestId) {
+        return responseCache.get(API_PREFIX + "/" + requestId, userId,
+                version -> get("/" + requestId, userId, null, version));
     }
 }
\ No newline at end of file
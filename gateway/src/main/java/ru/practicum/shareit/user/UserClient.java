@@ -1,45 +1,78 @@
 package ru.practicum.shareit.user;
 
+import io.github.resilience4j.bulkhead.Bulkhead;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ServerCallGuards;
+
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
 
 @Service
 public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
+    private final ResponseCache responseCache;
+    private final Bulkhead streamBulkhead;
 
     @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      HttpComponentsClientHttpRequestFactory requestFactory,
+                      ObjectProvider<ReactorClientHttpConnector> reactiveConnector,
+                      ResponseCache responseCache,
+                      ServerCallGuards guards) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                reactiveClient(serverUrl + API_PREFIX, reactiveConnector),
+                guards.forClient("users")
         );
+        this.responseCache = responseCache;
+        this.streamBulkhead = guards.forStream("users");
     }
 
-    public ResponseEntity<Object> add(UserDto userDto) {
+    public Mono<ResponseEntity<Object>> add(UserDto userDto) {
         return post("", userDto);
     }
 
-    public ResponseEntity<Object> getById(Integer userId) {
-        return get("/" + userId);
+    public Mono<ResponseEntity<Object>> getById(Integer userId) {
+        return responseCache.get(API_PREFIX + "/" + userId, null, version -> get("/" + userId, null, null, version));
+    }
+
+    public Mono<ResponseEntity<Object>> getAll(Integer from, Integer size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("from", from);
+        parameters.put("size", size);
+        if (cursor == null) {
+            return get("?from={from}&size={size}", null, parameters);
+        }
+        parameters.put("cursor", cursor);
+        return get("?from={from}&size={size}&cursor={cursor}", null, parameters);
     }
 
-    public ResponseEntity<Object> getAll() {
-        return get("/");
+    public void streamAll(OutputStream output) {
+        stream("/stream", output, streamBulkhead);
     }
 
-    public ResponseEntity<Object> update(Integer userId, UserDto userDto) {
-        return patch("/" + userId, userDto);
+    public Mono<ResponseEntity<Object>> update(Integer userId, UserDto userDto) {
+        return patch("/" + userId, userDto)
+                .doOnNext(response -> responseCache.clear());
     }
 
-    public ResponseEntity<Object> deleteById(Integer userId) {
-        return delete("/" + userId);
+    public Mono<ResponseEntity<Object>> deleteById(Integer userId) {
+        return delete("/" + userId)
+                .doOnNext(response -> responseCache.clear());
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package ru.practicum.shareit.user;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
@@ -12,10 +13,16 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.user.markers.Create;
 
+import javax.validation.constraints.Min;
+
 
 @Controller
+@Validated
 @RequiredArgsConstructor
 @RequestMapping(path = "/users")
 @Slf4j
@@ -23,31 +30,40 @@ public class UserController {
     private final UserClient userClient;
 
     @PostMapping
-    public ResponseEntity<Object> add(@Validated({Create.class}) @RequestBody UserDto user) {
+    public Mono<ResponseEntity<Object>> add(@Validated({Create.class}) @RequestBody UserDto user) {
         log.info("POST запрос на создание пользователя: {}", user);
         return userClient.add(user);
     }
 
     @PatchMapping("/{userId}")
-    public ResponseEntity<Object> update(@RequestBody UserDto userDto, @PathVariable Integer userId) {
+    public Mono<ResponseEntity<Object>> update(@RequestBody UserDto userDto, @PathVariable Integer userId) {
         log.info("PATCH запрос на обновление пользователя c id: {}", userId);
         return userClient.update(userId, userDto);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAll() {
-        log.info("GET запрос на получение списка всех пользователей.");
-        return userClient.getAll();
+    public Mono<ResponseEntity<Object>> getAll(@RequestParam(value = "from", defaultValue = "0") @Min(0) Integer from,
+                                               @RequestParam(value = "size", defaultValue = "10") @Min(1) Integer size,
+                                               @RequestParam(value = "cursor", required = false) String cursor) {
+        log.info("GET запрос на получение списка пользователей from={}, size={}, cursor={}", from, size, cursor);
+        return userClient.getAll(from, size, cursor);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream() {
+        log.info("GET запрос на потоковую выгрузку всех пользователей.");
+        StreamingResponseBody body = userClient::streamAll;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @GetMapping("/{userId}")
-    public ResponseEntity<Object> get(@PathVariable Integer userId) {
+    public Mono<ResponseEntity<Object>> get(@PathVariable Integer userId) {
         log.info("GET запрос на получение пользователя c id: {}", userId);
         return userClient.getById(userId);
     }
 
     @DeleteMapping("/{userId}")
-    public ResponseEntity<Object> delete(@PathVariable Integer userId) {
+    public Mono<ResponseEntity<Object>> delete(@PathVariable Integer userId) {
         log.info("DELETE запрос на удаление пользователя с id: {}", userId);
         return userClient.deleteById(userId);
     }
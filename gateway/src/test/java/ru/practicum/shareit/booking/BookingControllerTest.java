@@ -0,0 +1,69 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = BookingController.class)
+class BookingControllerTest {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private BookingClient bookingClient;
+
+    private final BookItemRequestDto bookingDto = new BookItemRequestDto(1,
+            LocalDateTime.now().plusDays(1L), LocalDateTime.now().plusDays(2L));
+
+    @Test
+    @SneakyThrows
+    void bookItemsWithPastStartShouldReturnBadRequest() {
+        BookItemRequestDto pastStart = new BookItemRequestDto(1,
+                LocalDateTime.now().minusDays(1L), LocalDateTime.now().plusDays(1L));
+
+        mockMvc.perform(post("/bookings/bulk")
+                        .contentType("application/json")
+                        .header("X-Sharer-User-Id", 1)
+                        .content(objectMapper.writeValueAsString(List.of(bookingDto, pastStart))))
+                .andExpect(status().isBadRequest());
+
+        verify(bookingClient, never()).bookItems(anyInt(), any());
+    }
+
+    @Test
+    @SneakyThrows
+    void bookItemsShouldPassValidBookingsToServer() {
+        when(bookingClient.bookItems(anyInt(), any())).thenReturn(Mono.just(ResponseEntity.ok().build()));
+
+        mockMvc.perform(post("/bookings/bulk")
+                        .contentType("application/json")
+                        .header("X-Sharer-User-Id", 1)
+                        .content(objectMapper.writeValueAsString(List.of(bookingDto, bookingDto))))
+                .andExpect(request().asyncStarted());
+
+        verify(bookingClient).bookItems(anyInt(), any());
+    }
+}
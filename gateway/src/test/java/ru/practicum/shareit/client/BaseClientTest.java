@@ -0,0 +1,428 @@
+package ru.practicum.shareit.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BaseClientTest {
+    private static final byte[] BODY = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final CountDownLatch upstreamRelease = new CountDownLatch(1);
+    private HttpStatus upstreamStatus = HttpStatus.OK;
+    private HttpServer server;
+
+    @AfterEach
+    void shutdown() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void concurrentIdenticalGetsShouldShareOneUpstreamCall() throws InterruptedException {
+        TestClient client = new TestClient(restTemplate());
+        ConcurrentLinkedQueue<ResponseEntity<Object>> responses = new ConcurrentLinkedQueue<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            threads.add(new Thread(() -> responses.add(client.get("/items/{id}", 1, Map.of("id", 1)).block())));
+        }
+
+        threads.forEach(Thread::start);
+        awaitAllWaiting(threads);
+        upstreamRelease.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(100, responses.size());
+        for (ResponseEntity<Object> response : responses) {
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertArrayEquals(BODY, (byte[]) response.getBody());
+        }
+    }
+
+    @Test
+    void getsForDifferentUsersShouldNotBeShared() {
+        upstreamRelease.countDown();
+        TestClient client = new TestClient(restTemplate());
+
+        client.get("/items/{id}", 1, Map.of("id", 1)).block();
+        client.get("/items/{id}", 2, Map.of("id", 1)).block();
+        client.get("/items/{id}", 1, Map.of("id", 1)).block();
+
+        assertEquals(3, upstreamCalls.get());
+    }
+
+    @Test
+    void getStartedAfterEvictionShouldNotJoinCallStartedBeforeIt() throws InterruptedException {
+        TestClient client = new TestClient(restTemplate());
+        ResponseCache cache = new ResponseCache(new SimpleMeterRegistry(), true, 100, 60_000);
+        Thread beforeWrite = new Thread(() -> cache.get("/items/1", 1,
+                version -> client.get("/items/{id}", 1, Map.of("id", 1), version)).block());
+        beforeWrite.start();
+        awaitAllWaiting(List.of(beforeWrite));
+
+        cache.evict("/items/1");
+        Thread afterWrite = new Thread(() -> cache.get("/items/1", 1,
+                version -> client.get("/items/{id}", 1, Map.of("id", 1), version)).block());
+        afterWrite.start();
+        awaitAllWaiting(List.of(beforeWrite, afterWrite));
+        upstreamRelease.countDown();
+        beforeWrite.join();
+        afterWrite.join();
+
+        assertEquals(2, upstreamCalls.get());
+        cache.get("/items/1", 1, version -> client.get("/items/{id}", 1, Map.of("id", 1), version)).block();
+        assertEquals(1, cache.getHits());
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void circuitBreakerShouldPassServerErrorsThroughAndThenFailFast() {
+        upstreamRelease.countDown();
+        upstreamStatus = HttpStatus.INTERNAL_SERVER_ERROR;
+        CircuitBreaker circuitBreaker = CircuitBreaker.of("items", CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .build());
+        TestClient client = new TestClient(restTemplate(),
+                new ServerCallGuard(circuitBreaker, Bulkhead.ofDefaults("items")));
+
+        for (int i = 0; i < 4; i++) {
+            ResponseEntity<Object> response = client.get("/items/{id}", 1, Map.of("id", 1)).block();
+            assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertThrows(CallNotPermittedException.class, () -> client.get("/items/{id}", 1, Map.of("id", 1)).block());
+        assertEquals(4, upstreamCalls.get());
+    }
+
+    @Test
+    void slowCallsShouldOpenOnlyTheirClientsCircuitBreaker() throws Exception {
+        String serverUrl = delayedServerUrl(Duration.ofMillis(500));
+        CircuitBreakerConfig slowCalls = CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .slowCallDurationThreshold(Duration.ofMillis(200))
+                .slowCallRateThreshold(80)
+                .build();
+        CircuitBreaker itemsBreaker = CircuitBreaker.of("items", slowCalls);
+        CircuitBreaker usersBreaker = CircuitBreaker.of("users", slowCalls);
+        TestClient items = new TestClient(restTemplate(serverUrl),
+                new ServerCallGuard(itemsBreaker, Bulkhead.ofDefaults("items")));
+        TestClient users = new TestClient(restTemplate(serverUrl),
+                new ServerCallGuard(usersBreaker, Bulkhead.ofDefaults("users")));
+        List<Thread> slowCallers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            int userId = i;
+            slowCallers.add(new Thread(() -> items.get("/slow", userId, null).block()));
+        }
+
+        slowCallers.forEach(Thread::start);
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(HttpStatus.OK, users.get("/fast", i, null).block().getStatusCode());
+        }
+        Duration fastCalls = Duration.ofNanos(System.nanoTime() - start);
+        for (Thread thread : slowCallers) {
+            thread.join();
+        }
+
+        assertTrue(fastCalls.compareTo(Duration.ofMillis(500)) < 0, "быстрые вызовы заняли " + fastCalls);
+        assertEquals(CircuitBreaker.State.OPEN, itemsBreaker.getState());
+        assertEquals(4, itemsBreaker.getMetrics().getNumberOfSlowCalls());
+        assertThrows(CallNotPermittedException.class, () -> items.get("/slow", 1, null).block());
+        assertEquals(4, upstreamCalls.get());
+        assertEquals(CircuitBreaker.State.CLOSED, usersBreaker.getState());
+        assertEquals(HttpStatus.OK, users.get("/fast", 1, null).block().getStatusCode());
+    }
+
+    @Test
+    void bulkheadShouldRejectCallsOverConcurrencyLimit() throws InterruptedException {
+        Bulkhead bulkhead = Bulkhead.of("items", BulkheadConfig.custom()
+                .maxConcurrentCalls(1)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        TestClient client = new TestClient(restTemplate(),
+                new ServerCallGuard(CircuitBreaker.ofDefaults("items"), bulkhead));
+        Thread slowCall = new Thread(() -> client.get("/items/{id}", 1, Map.of("id", 1)).block());
+        slowCall.start();
+        awaitAllWaiting(List.of(slowCall));
+
+        assertThrows(BulkheadFullException.class, () -> client.get("/items/{id}", 2, Map.of("id", 2)).block());
+
+        upstreamRelease.countDown();
+        slowCall.join();
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(1, bulkhead.getMetrics().getAvailableConcurrentCalls());
+    }
+
+    @Test
+    void streamShouldCopyResponseBodyToOutput() {
+        upstreamRelease.countDown();
+        TestClient client = new TestClient(restTemplate(),
+                new ServerCallGuard(CircuitBreaker.ofDefaults("users"), Bulkhead.ofDefaults("users")));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        client.stream("/users/stream", output, Bulkhead.ofDefaults("users-stream"));
+
+        assertArrayEquals(BODY, output.toByteArray());
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void streamShouldHoldOnlyItsOwnBulkheadPermit() throws InterruptedException {
+        Bulkhead callBulkhead = Bulkhead.of("users", BulkheadConfig.custom()
+                .maxConcurrentCalls(1)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        Bulkhead streamBulkhead = Bulkhead.of("users-stream", BulkheadConfig.custom()
+                .maxConcurrentCalls(1)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        TestClient client = new TestClient(restTemplate(),
+                new ServerCallGuard(CircuitBreaker.ofDefaults("users"), callBulkhead));
+        Thread slowStream = new Thread(() -> client.stream("/users/stream", new ByteArrayOutputStream(),
+                streamBulkhead));
+        slowStream.start();
+        awaitAllWaiting(List.of(slowStream));
+
+        assertEquals(1, callBulkhead.getMetrics().getAvailableConcurrentCalls());
+        assertThrows(BulkheadFullException.class,
+                () -> client.stream("/users/stream", new ByteArrayOutputStream(), streamBulkhead));
+
+        upstreamRelease.countDown();
+        slowStream.join();
+        assertEquals(1, streamBulkhead.getMetrics().getAvailableConcurrentCalls());
+    }
+
+    @Test
+    void passThroughShouldAllocateLessThanJsonRoundTrip() throws Exception {
+        upstreamRelease.countDown();
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 2000; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"id\":").append(i).append(",\"name\":\"item ").append(i)
+                    .append("\",\"description\":\"description ").append(i).append("\",\"available\":true}");
+        }
+        byte[] body = json.append("]").toString().getBytes(StandardCharsets.UTF_8);
+        RestTemplate rest = restTemplate(body);
+        TestClient client = new TestClient(rest);
+        ObjectMapper objectMapper = new ObjectMapper();
+        Callable<Object> passThrough = () -> client.get("/items", 1, null).block().getBody();
+        // прежний путь: тело разбиралось в дерево LinkedHashMap и заново сериализовалось при ответе
+        Callable<Object> roundTrip = () -> objectMapper.writeValueAsBytes(rest.getForObject("/items", Object.class));
+
+        assertArrayEquals(body, (byte[]) passThrough.call());
+        long passThroughBytes = allocatedBytes(passThrough);
+        long roundTripBytes = allocatedBytes(roundTrip);
+
+        assertTrue(passThroughBytes * 2 < roundTripBytes,
+                "pass-through: " + passThroughBytes + ", round-trip: " + roundTripBytes);
+    }
+
+    @Test
+    void reactiveGetShouldPassBodyAndHeadersWithoutHopByHopHeaders() throws IOException {
+        TestClient client = new TestClient(restTemplate(), webClient());
+
+        ResponseEntity<Object> response = client.get("/items/{id}", 1, Map.of("id", 200)).block();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(BODY, (byte[]) response.getBody());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertEquals("1", response.getHeaders().getFirst("X-Sharer-User-Id"));
+        assertFalse(response.getHeaders().containsKey(HttpHeaders.TRANSFER_ENCODING));
+        assertFalse(response.getHeaders().containsKey(HttpHeaders.CONNECTION));
+        assertEquals(0, upstreamCalls.get());
+    }
+
+    @Test
+    void reactiveGetShouldPassErrorBodiesUnchanged() throws IOException {
+        TestClient client = new TestClient(restTemplate(), webClient());
+
+        ResponseEntity<Object> notFound = client.get("/items/{id}", 1, Map.of("id", 404)).block();
+        ResponseEntity<Object> serverError = client.get("/items/{id}", 1, Map.of("id", 500)).block();
+
+        assertEquals(HttpStatus.NOT_FOUND, notFound.getStatusCode());
+        assertArrayEquals(errorBody(404), (byte[]) notFound.getBody());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, serverError.getStatusCode());
+        assertArrayEquals(errorBody(500), (byte[]) serverError.getBody());
+    }
+
+    /**
+     * Заглушка сервера отвечает на /slow с задержкой, на /fast — сразу; запросы обрабатываются параллельно.
+     */
+    private String delayedServerUrl(Duration delay) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            if (exchange.getRequestURI().getPath().equals("/slow")) {
+                upstreamCalls.incrementAndGet();
+                try {
+                    Thread.sleep(delay.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, BODY.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(BODY);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Заглушка сервера отвечает на /items/{статус} этим статусом, успешный ответ передаётся по частям
+     * (Transfer-Encoding: chunked) и возвращает заголовок пользователя.
+     */
+    private WebClient webClient() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/items", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            int status = Integer.parseInt(path.substring(path.lastIndexOf('/') + 1));
+            byte[] body = status == 200 ? BODY : errorBody(status);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("X-Sharer-User-Id",
+                    exchange.getRequestHeaders().getFirst("X-Sharer-User-Id"));
+            exchange.sendResponseHeaders(status, status == 200 ? 0 : body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        server.start();
+        return WebClient.builder()
+                .baseUrl("http://localhost:" + server.getAddress().getPort())
+                .clientConnector(new ReactorClientHttpConnector())
+                .build();
+    }
+
+    private static byte[] errorBody(int status) {
+        return ("{\"error\":\"Ошибка " + status + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long allocatedBytes(Callable<Object> call) throws Exception {
+        for (int i = 0; i < 20; i++) {
+            call.call();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 20; i++) {
+            call.call();
+        }
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    private RestTemplate restTemplate() {
+        return restTemplate(BODY);
+    }
+
+    private static RestTemplate restTemplate(String serverUrl) {
+        RestTemplate rest = new RestTemplate();
+        rest.setUriTemplateHandler(new DefaultUriBuilderFactory(serverUrl));
+        return rest;
+    }
+
+    private RestTemplate restTemplate(byte[] body) {
+        return new RestTemplate((uri, method) -> new MockClientHttpRequest(method, uri) {
+            @Override
+            protected ClientHttpResponse executeInternal() {
+                upstreamCalls.incrementAndGet();
+                try {
+                    upstreamRelease.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                MockClientHttpResponse response = new MockClientHttpResponse(body, upstreamStatus);
+                response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                response.getHeaders().setContentLength(body.length);
+                return response;
+            }
+        });
+    }
+
+    private static void awaitAllWaiting(List<Thread> threads) throws InterruptedException {
+        while (!threads.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING)) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static class TestClient extends BaseClient {
+        TestClient(RestTemplate rest) {
+            super(rest);
+        }
+
+        TestClient(RestTemplate rest, ServerCallGuard guard) {
+            super(rest, null, guard);
+        }
+
+        TestClient(RestTemplate rest, WebClient web) {
+            super(rest, web, null);
+        }
+
+        @Override
+        public void stream(String path, OutputStream output, Bulkhead bulkhead) {
+            super.stream(path, output, bulkhead);
+        }
+
+        @Override
+        public Mono<ResponseEntity<Object>> get(String path, Integer userId, Map<String, Object> parameters) {
+            return super.get(path, userId, parameters);
+        }
+
+        @Override
+        public Mono<ResponseEntity<Object>> get(String path, Integer userId, Map<String, Object> parameters,
+                                                long cacheVersion) {
+            return super.get(path, userId, parameters, cacheVersion);
+        }
+    }
+}
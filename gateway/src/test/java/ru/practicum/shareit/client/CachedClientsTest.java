@@ -0,0 +1,242 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import ru.practicum.shareit.booking.BookingClient;
+import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.item.ItemClient;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.RequestClient;
+import ru.practicum.shareit.user.UserClient;
+import ru.practicum.shareit.user.UserDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Проверяет на заглушке сервера, что каждая запись через клиентов сбрасывает из кэша ответов
+ * только затронутые ресурсы.
+ */
+public class CachedClientsTest {
+    private final Map<String, Integer> upstreamGets = new ConcurrentHashMap<>();
+    private final Map<String, String> writeResponses = new ConcurrentHashMap<>();
+    private final HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory();
+    private HttpServer server;
+    private ItemClient items;
+    private UserClient users;
+    private BookingClient bookings;
+    private RequestClient requests;
+
+    @BeforeEach
+    void init() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+        String serverUrl = "http://localhost:" + server.getAddress().getPort();
+        ResponseCache cache = new ResponseCache(new SimpleMeterRegistry(), true, 100, 60_000);
+        ServerCallGuards guards = new ServerCallGuards(CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.ofDefaults());
+        ObjectProvider<ReactorClientHttpConnector> blocking = new StaticListableBeanFactory()
+                .getBeanProvider(ReactorClientHttpConnector.class);
+        RestTemplateBuilder builder = new RestTemplateBuilder();
+        items = new ItemClient(serverUrl, builder, requestFactory, blocking, cache, guards);
+        users = new UserClient(serverUrl, builder, requestFactory, blocking, cache, guards);
+        bookings = new BookingClient(serverUrl, builder, requestFactory, blocking, cache, guards);
+        requests = new RequestClient(serverUrl, builder, requestFactory, blocking, cache, guards);
+    }
+
+    @AfterEach
+    void shutdown() throws Exception {
+        requestFactory.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void itemUpdateShouldEvictItemAndRequests() {
+        warmUp();
+
+        items.update(1, 1, new ItemDto("name", "description", true)).block();
+        warmUp();
+
+        assertUpstreamGets(2, 1, 1, 2);
+    }
+
+    @Test
+    void itemCreateShouldEvictOnlyItsRequest() {
+        warmUp();
+        requests.getRequestById(1, 2).block();
+
+        items.create(1, new ItemDto("name", "description", true, 1)).block();
+        warmUp();
+        requests.getRequestById(1, 2).block();
+
+        assertUpstreamGets(1, 1, 1, 2);
+        assertEquals(1, upstreamGets.get("/requests/2"));
+    }
+
+    @Test
+    void itemImportShouldEvictRequests() {
+        warmUp();
+
+        items.importItems(1, List.of(new ItemDto("name", "description", true, 1))).block();
+        warmUp();
+
+        assertUpstreamGets(1, 1, 1, 2);
+    }
+
+    @Test
+    void commentShouldEvictOnlyItsItem() {
+        warmUp();
+
+        items.createComment(2, new CommentDto("text"), 1).block();
+        warmUp();
+
+        assertUpstreamGets(2, 1, 1, 1);
+    }
+
+    @Test
+    void userUpdateAndDeleteShouldEvictEverything() {
+        warmUp();
+
+        users.update(1, new UserDto(1, "name", "user@email.com")).block();
+        warmUp();
+        assertUpstreamGets(2, 2, 2, 2);
+
+        users.deleteById(1).block();
+        warmUp();
+        assertUpstreamGets(3, 3, 3, 3);
+    }
+
+    @Test
+    void bookItemShouldEvictOnlyBookedItem() {
+        warmUp();
+
+        bookings.bookItem(1, new BookItemRequestDto(1, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2))).block();
+        warmUp();
+
+        assertUpstreamGets(2, 1, 1, 1);
+    }
+
+    @Test
+    void bookItemsShouldEvictOnlyBookedItems() {
+        warmUp();
+        items.get(1, 3).block();
+
+        bookings.bookItems(1, List.of(
+                new BookItemRequestDto(1, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2)),
+                new BookItemRequestDto(3, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2)))).block();
+        warmUp();
+        items.get(1, 3).block();
+
+        assertUpstreamGets(2, 1, 1, 1);
+        assertEquals(2, upstreamGets.get("/items/3"));
+    }
+
+    @Test
+    void approvalShouldEvictOnlyItemFromResponse() {
+        writeResponses.put("/bookings/5", "{\"id\":5,\"item\":{\"id\":2,\"name\":\"item\"},\"status\":\"APPROVED\"}");
+        warmUp();
+
+        bookings.update(2, 5, true).block();
+        warmUp();
+
+        assertUpstreamGets(1, 2, 1, 1);
+    }
+
+    @Test
+    void rejectedApprovalShouldEvictNothing() {
+        writeResponses.put("/bookings/5", "!400");
+        warmUp();
+
+        bookings.update(2, 5, false).block();
+        warmUp();
+
+        assertUpstreamGets(1, 1, 1, 1);
+    }
+
+    @Test
+    void unreadableApprovalResponseShouldEvictAllItems() {
+        writeResponses.put("/bookings/5", "not json");
+        warmUp();
+
+        bookings.update(2, 5, true).block();
+        warmUp();
+
+        assertUpstreamGets(2, 2, 1, 1);
+    }
+
+    @Test
+    void bulkApprovalShouldEvictOnlyItemsOfUpdatedBookings() {
+        writeResponses.put("/bookings/bulk", "[{\"bookingId\":5,\"booking\":{\"id\":5,\"item\":{\"id\":2}}},"
+                + "{\"bookingId\":6,\"booking\":null,\"error\":\"Бронирование не найдено\"}]");
+        warmUp();
+        items.get(1, 3).block();
+
+        bookings.updateAll(2, List.of(5, 6), true).block();
+        warmUp();
+        items.get(1, 3).block();
+
+        assertUpstreamGets(1, 2, 1, 1);
+        assertEquals(1, upstreamGets.get("/items/3"));
+    }
+
+    /**
+     * Запрашивает вещи 1 и 2, пользователя 1 и запрос 1: закэшированные ответы на сервер не уходят.
+     */
+    private void warmUp() {
+        items.get(1, 1).block();
+        items.get(1, 2).block();
+        users.getById(1).block();
+        requests.getRequestById(1, 1).block();
+    }
+
+    private void assertUpstreamGets(int item1, int item2, int user1, int request1) {
+        assertEquals(item1, upstreamGets.get("/items/1"), "/items/1");
+        assertEquals(item2, upstreamGets.get("/items/2"), "/items/2");
+        assertEquals(user1, upstreamGets.get("/users/1"), "/users/1");
+        assertEquals(request1, upstreamGets.get("/requests/1"), "/requests/1");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        exchange.getRequestBody().readAllBytes();
+        int status = 200;
+        String body = "{\"id\":1}";
+        if (exchange.getRequestMethod().equals("GET")) {
+            upstreamGets.merge(path, 1, Integer::sum);
+        } else if (writeResponses.containsKey(path)) {
+            body = writeResponses.get(path);
+            if (body.startsWith("!")) {
+                status = Integer.parseInt(body.substring(1));
+                body = "{\"error\":\"Бронирование уже рассмотрено\"}";
+            }
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+}
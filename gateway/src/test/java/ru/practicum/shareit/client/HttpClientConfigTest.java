@@ -0,0 +1,164 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.impl.NoConnectionReuseStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет пул соединений на заглушке сервера: соединения переиспользуются, их число не превышает лимит,
+ * а пропускная способность выше, чем при новом соединении на каждый запрос.
+ */
+public class HttpClientConfigTest {
+    private static final byte[] BODY = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HttpClientConfig config = new HttpClientConfig();
+    private final ExecutorService serverThreads = Executors.newFixedThreadPool(8);
+    private HttpServer server;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+
+    @BeforeEach
+    void init() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/items", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, BODY.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(BODY);
+            }
+        });
+        server.setExecutor(serverThreads);
+        server.start();
+        connectionManager = config.shareItConnectionManager(4, 2, 2000, meterRegistry);
+        httpClient = config.shareItHttpClient(connectionManager, 2000, 1000, 10000, 30000, 30000);
+    }
+
+    @AfterEach
+    void shutdown() throws IOException {
+        httpClient.close();
+        connectionManager.close();
+        server.stop(0);
+        serverThreads.shutdown();
+    }
+
+    @Test
+    void sequentialRequestsShouldReuseOneConnection() {
+        RestTemplate rest = restTemplate();
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals("{\"id\":1}", rest.getForObject("/items", String.class));
+        }
+
+        assertEquals(1, clientPorts.size());
+        assertEquals(1, connectionManager.getTotalStats().getAvailable());
+    }
+
+    @Test
+    void concurrentRequestsShouldNotOpenMoreConnectionsThanRouteLimit() throws InterruptedException {
+        RestTemplate rest = restTemplate();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 25; j++) {
+                    rest.getForObject("/items", String.class);
+                }
+            }));
+        }
+
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(clientPorts.size() <= 2, "соединений открыто: " + clientPorts.size());
+        assertEquals(0, connectionManager.getTotalStats().getLeased());
+        assertEquals(2.0, meterRegistry.get("httpcomponents.httpclient.pool.route.max.default").gauge().value());
+    }
+
+    @Test
+    void pooledClientShouldServeMoreRequestsPerSecondThanConnectionPerRequest() throws Exception {
+        PoolingHttpClientConnectionManager pooledManager = config.shareItConnectionManager(8, 8, 2000,
+                new SimpleMeterRegistry());
+        PoolingHttpClientConnectionManager unpooledManager = config.shareItConnectionManager(8, 8, 2000,
+                new SimpleMeterRegistry());
+        try (CloseableHttpClient pooled = config.shareItHttpClient(pooledManager, 2000, 1000, 10000, 30000, 30000);
+             CloseableHttpClient unpooled = HttpClients.custom()
+                     .setConnectionManager(unpooledManager)
+                     .setConnectionReuseStrategy(NoConnectionReuseStrategy.INSTANCE)
+                     .build()) {
+            RestTemplate pooledRest = restTemplate(pooled);
+            RestTemplate unpooledRest = restTemplate(unpooled);
+            requestsPerSecond(pooledRest);
+            requestsPerSecond(unpooledRest);
+
+            clientPorts.clear();
+            double pooledRate = requestsPerSecond(pooledRest);
+            int pooledConnections = clientPorts.size();
+            clientPorts.clear();
+            double unpooledRate = requestsPerSecond(unpooledRest);
+            int unpooledConnections = clientPorts.size();
+
+            assertTrue(pooledConnections <= 8, "соединений в пуле: " + pooledConnections);
+            assertTrue(unpooledConnections > 100, "соединений без пула: " + unpooledConnections);
+            assertTrue(pooledRate > unpooledRate,
+                    String.format("с пулом: %.0f запросов/с, без пула: %.0f запросов/с", pooledRate, unpooledRate));
+        } finally {
+            pooledManager.close();
+            unpooledManager.close();
+        }
+    }
+
+    private static double requestsPerSecond(RestTemplate rest) throws InterruptedException {
+        int threadCount = 8;
+        int requestsPerThread = 200;
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < requestsPerThread; j++) {
+                    rest.getForObject("/items", String.class);
+                }
+            }));
+        }
+        long start = System.nanoTime();
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return threadCount * requestsPerThread * 1e9 / (System.nanoTime() - start);
+    }
+
+    private RestTemplate restTemplate() {
+        return restTemplate(httpClient);
+    }
+
+    private RestTemplate restTemplate(CloseableHttpClient client) {
+        RestTemplate rest = new RestTemplate(config.shareItRequestFactory(client));
+        rest.setUriTemplateHandler(new DefaultUriBuilderFactory("http://localhost:" + server.getAddress().getPort()));
+        return rest;
+    }
+}
@@ -0,0 +1,146 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ResponseCacheTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void getShouldLoadOnceAndCountHitsAndMisses() {
+        ResponseCache cache = new ResponseCache(meterRegistry, true, 10, 60_000);
+
+        ResponseEntity<Object> first = cache.get("/items/1", 1, loader(HttpStatus.OK)).block();
+        ResponseEntity<Object> second = cache.get("/items/1", 1, loader(HttpStatus.OK)).block();
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1.0, meterRegistry.get("shareit.gateway.cache.hits").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("shareit.gateway.cache.misses").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("shareit.gateway.cache.size").gauge().value());
+    }
+
+    @Test
+    void getShouldNotCacheErrorResponses() {
+        ResponseCache cache = new ResponseCache(meterRegistry, true, 10, 60_000);
+
+        cache.get("/items/1", 1, loader(HttpStatus.NOT_FOUND)).block();
+        cache.get("/items/1", 1, loader(HttpStatus.NOT_FOUND)).block();
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void expiredEntryShouldBeReloaded() {
+        ResponseCache cache = new ResponseCache(meterRegistry, true, 10, 0);
+
+        cache.get("/items/1", 1, loader(HttpStatus.OK)).block();
+        cache.get("/items/1", 1, loader(HttpStatus.OK)).block();
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void cacheShouldEvictLeastRecentlyUsedEntry() {
+        ResponseCache cache = new ResponseCache(meterRegistry, true, 2, 60_000);
+        cache.get("/items/1", 1, loader(HttpStatus.OK)).block();
+        cache.get("/items/2", 1, loader(HttpStatus.OK)).block();
+        cache.get("/items/1", 1, loader(HttpStatus.OK)).block();
+
+        cache.get("/items/3", 1, loader(HttpStatus.OK)).block();
+        cache.get("/items/1", 1, loader(HttpStatus.OK)).block();
+        cache.get("/items/2", 1, loader(HttpStatus.OK)).block();
+
+        assertEquals(2, cache.size());
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.getEvictions());
+        assertEquals(2.0, meterRegistry.get("shareit.gateway.cache.evictions").functionCounter().count());
+    }
+
+    @Test
+    void entriesShouldBeSeparatePerUser() {
+        ResponseCache cache = new ResponseCache(meterRegistry, true, 10, 60_000);
+
+        cache.get("/items/1", 1, loader(HttpStatus.OK)).block();
+        cache.get("/items/1", 2, loader(HttpStatus.OK)).block();
+        cache.get("/items/1", null, loader(HttpStatus.OK)).block();
+        cache.get("/items/1", 2, loader(HttpStatus.OK)).block();
+
+        assertEquals(3, loads.get());
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void evictShouldDropPathForAllUsersOnly() {
+        ResponseCache cache = new ResponseCache(meterRegistry, true, 10, 60_000);
+        cache.get("/items/1", 1, loader(HttpStatus.OK)).block();
+        cache.get("/items/1", 2, loader(HttpStatus.OK)).block();
+        cache.get("/items/10", 1, loader(HttpStatus.OK)).block();
+
+        cache.evict("/items/1");
+
+        assertEquals(1, cache.size());
+        cache.get("/items/10", 1, loader(HttpStatus.OK)).block();
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void evictPrefixAndClearShouldDropMatchingEntries() {
+        ResponseCache cache = new ResponseCache(meterRegistry, true, 10, 60_000);
+        cache.get("/items/1", 1, loader(HttpStatus.OK)).block();
+        cache.get("/requests/1", 1, loader(HttpStatus.OK)).block();
+
+        cache.evictPrefix("/requests/");
+        assertEquals(1, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void responseLoadedBeforeEvictionShouldNotBeCached() {
+        ResponseCache cache = new ResponseCache(meterRegistry, true, 10, 60_000);
+
+        cache.get("/items/1", 1, version -> {
+            cache.evict("/items/1");
+            return loader(HttpStatus.OK).apply(version);
+        }).block();
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void disabledCacheShouldAlwaysLoad() {
+        ResponseCache cache = new ResponseCache(meterRegistry, false, 10, 60_000);
+
+        cache.get("/items/1", 1, loader(HttpStatus.OK)).block();
+        cache.get("/items/1", 1, loader(HttpStatus.OK)).block();
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getMisses());
+    }
+
+    private LongFunction<Mono<ResponseEntity<Object>>> loader(HttpStatus status) {
+        return version -> Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return ResponseEntity.status(status).body(new byte[0]);
+        });
+    }
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.booking;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -11,6 +12,8 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.shareit.booking.dto.BookingBulkResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoOut;
 import ru.practicum.shareit.booking.service.BookingService;
@@ -23,6 +26,8 @@ import java.util.List;
 @Validated
 @RequestMapping(path = "/bookings")
 public class BookingController {
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final BookingService bookingService;
 
     public BookingController(BookingServiceImpl bookingService) {
@@ -36,6 +41,21 @@ public class BookingController {
         return bookingService.add(userId, bookingDto);
     }
 
+    @PostMapping("/bulk")
+    public List<BookingBulkResultDto> createAll(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                                @RequestBody List<BookingDto> bookingDtos) {
+        log.info("Пользователь с id:{} создал {} запросов на бронирование вещей", userId, bookingDtos.size());
+        return bookingService.addAll(userId, bookingDtos);
+    }
+
+    @PatchMapping("/bulk")
+    public List<BookingBulkResultDto> updateStatuses(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                                     @RequestParam(name = "approved") Boolean approved,
+                                                     @RequestBody List<Integer> bookingIds) {
+        log.info("Владелец id:{} обновил статус бронирований {}", userId, bookingIds);
+        return bookingService.updateAll(userId, bookingIds, approved);
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingDtoOut updateStatus(@RequestHeader("X-Sharer-User-Id") Integer userId,
                                       @PathVariable("bookingId") Integer bookingId,
@@ -52,20 +72,30 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingDtoOut> findAll(@RequestHeader("X-Sharer-User-Id") Integer userId,
-                                       @RequestParam(value = "state", defaultValue = "ALL") String bookingState,
-                                       @RequestParam(value = "from", defaultValue = "0") Integer from,
-                                       @RequestParam(value = "size", defaultValue = "10") Integer size) {
+    public ResponseEntity<List<BookingDtoOut>> findAll(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                                       @RequestParam(value = "state", defaultValue = "ALL") String bookingState,
+                                                       @RequestParam(value = "from", defaultValue = "0") Integer from,
+                                                       @RequestParam(value = "size", defaultValue = "10") Integer size,
+                                                       @RequestParam(value = "cursor", required = false) String cursor) {
         log.info("Отправлен список всех бронирований со статусом {} пользователю id:{}", bookingState, userId);
-        return bookingService.findAll(userId, bookingState, from, size);
+        return withNextCursor(bookingService.findAll(userId, bookingState, from, size, cursor), size);
     }
 
     @GetMapping("/owner")
-    public List<BookingDtoOut> getAllOwner(@RequestHeader("X-Sharer-User-Id") Integer ownerId,
-                                           @RequestParam(value = "state", defaultValue = "ALL") String bookingState,
-                                           @RequestParam(value = "from", defaultValue = "0") Integer from,
-                                           @RequestParam(value = "size", defaultValue = "10") Integer size) {
+    public ResponseEntity<List<BookingDtoOut>> getAllOwner(@RequestHeader("X-Sharer-User-Id") Integer ownerId,
+                                                           @RequestParam(value = "state", defaultValue = "ALL") String bookingState,
+                                                           @RequestParam(value = "from", defaultValue = "0") Integer from,
+                                                           @RequestParam(value = "size", defaultValue = "10") Integer size,
+                                                           @RequestParam(value = "cursor", required = false) String cursor) {
         log.info("Отправлен список всех бронирований со статусом {} владельцу вещей с id:{}", bookingState, ownerId);
-        return bookingService.findAllOwner(ownerId, bookingState, from, size);
+        return withNextCursor(bookingService.findAllOwner(ownerId, bookingState, from, size, cursor), size);
+    }
+
+    private static ResponseEntity<List<BookingDtoOut>> withNextCursor(List<BookingDtoOut> bookings, Integer size) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!bookings.isEmpty() && bookings.size() == size) {
+            response.header(NEXT_CURSOR_HEADER, BookingCursor.of(bookings.get(bookings.size() - 1)).encode());
+        }
+        return response.body(bookings);
     }
 }
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Результат обработки одного бронирования в массовой операции: бронирование либо текст ошибки.
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingBulkResultDto {
+    private Integer bookingId;
+    private BookingDtoOut booking;
+    private String error;
+}
@@ -5,8 +5,11 @@ import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoOut;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingView;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemDtoMapper;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserDtoMapper;
 
@@ -30,4 +33,19 @@ public class BookingDtoMapper {
                 UserDtoMapper.userToDto(booking.getBooker()),
                 booking.getStatus());
     }
+
+    public BookingDtoOut toBookingOut(BookingView booking) {
+        return new BookingDtoOut(
+                booking.getId(),
+                new ItemDto(
+                        booking.getItemId(),
+                        booking.getItemName(),
+                        booking.getItemDescription(),
+                        booking.getItemAvailable(),
+                        booking.getItemRequestId()),
+                booking.getStart(),
+                booking.getEnd(),
+                new UserDto(booking.getBookerId(), booking.getBookerName(), booking.getBookerEmail()),
+                booking.getStatus());
+    }
 }
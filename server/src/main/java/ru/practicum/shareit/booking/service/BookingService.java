@@ -1,5 +1,6 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingBulkResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoOut;
 
@@ -10,9 +11,13 @@ public interface BookingService {
 
     BookingDtoOut update(Integer userId, Integer bookingId, Boolean approved);
 
+    List<BookingBulkResultDto> addAll(Integer userId, List<BookingDto> bookingDtos);
+
+    List<BookingBulkResultDto> updateAll(Integer userId, List<Integer> bookingIds, Boolean approved);
+
     BookingDtoOut findBookingByUserId(Integer userId, Integer bookingId);
 
-    List<BookingDtoOut> findAll(Integer userId, String state, Integer from, Integer size);
+    List<BookingDtoOut> findAll(Integer userId, String state, Integer from, Integer size, String cursor);
 
-    List<BookingDtoOut> findAllOwner(Integer userId, String state, Integer from, Integer size);
+    List<BookingDtoOut> findAllOwner(Integer userId, String state, Integer from, Integer size, String cursor);
 }
@@ -5,12 +5,15 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingBulkResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoOut;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.BookingView;
 import ru.practicum.shareit.exceptions.extraExceptions.BookingNotFoundException;
 import ru.practicum.shareit.exceptions.extraExceptions.ItemNotFoundException;
 import ru.practicum.shareit.exceptions.extraExceptions.UserNotFoundException;
@@ -18,25 +21,39 @@ import ru.practicum.shareit.exceptions.extraExceptions.ValidationException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 import ru.practicum.shareit.user.storage.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
 @Slf4j
 @Service
 public class BookingServiceImpl implements BookingService {
+    private static final int MAX_BULK_BOOKINGS = 100;
+
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final BookingTimelineCache bookingTimelineCache;
+    private final UserExistenceCache userExistenceCache;
 
-    public BookingServiceImpl(BookingRepository bookingRepository, UserRepository userRepository, ItemRepository itemRepository) {
+    public BookingServiceImpl(BookingRepository bookingRepository, UserRepository userRepository, ItemRepository itemRepository,
+                              BookingTimelineCache bookingTimelineCache, UserExistenceCache userExistenceCache) {
         this.bookingRepository = bookingRepository;
         this.userRepository = userRepository;
         this.itemRepository = itemRepository;
+        this.bookingTimelineCache = bookingTimelineCache;
+        this.userExistenceCache = userExistenceCache;
     }
 
     @Override
@@ -53,8 +70,11 @@ public class BookingServiceImpl implements BookingService {
         }
         Item item = itemById.get();
         bookingValidation(bookingDto, user, item);
+        checkOverlap(item.getId(), bookingDto.getStart(), bookingDto.getEnd(), 0);
         Booking booking = BookingDtoMapper.toBooking(user, item, bookingDto);
-        return BookingDtoMapper.toBookingOut(bookingRepository.save(booking));
+        BookingDtoOut bookingDtoOut = BookingDtoMapper.toBookingOut(bookingRepository.save(booking));
+        bookingTimelineCache.onBookingChanged(bookingDtoOut);
+        return bookingDtoOut;
     }
 
     @Override
@@ -63,9 +83,131 @@ public class BookingServiceImpl implements BookingService {
         log.info("Обновление статуса бронирования вещи от владельца с id:{}", userId);
         Booking booking = validateBookingDetails(userId, bookingId, 1);
         assert booking != null;
+        if (approved) {
+            // блокировка вещи упорядочивает параллельные подтверждения её бронирований
+            itemRepository.findByIdForUpdate(booking.getItem().getId());
+            checkOverlap(booking.getItem().getId(), booking.getStart(), booking.getEnd(), booking.getId());
+        }
         BookingStatus newStatus = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
         booking.setStatus(newStatus);
-        return BookingDtoMapper.toBookingOut(bookingRepository.save(booking));
+        BookingDtoOut bookingDtoOut = BookingDtoMapper.toBookingOut(bookingRepository.save(booking));
+        bookingTimelineCache.onBookingChanged(bookingDtoOut);
+        return bookingDtoOut;
+    }
+
+    @Override
+    @Transactional
+    public List<BookingBulkResultDto> addAll(Integer userId, List<BookingDto> bookingDtos) {
+        log.info("Массовое создание {} бронирований пользователем id:{}", bookingDtos.size(), userId);
+        checkBulkSize(bookingDtos.size());
+        User user = userRepository.findById(userId).orElseThrow(() -> {
+                    return new UserNotFoundException("Пользователя с " + userId + " не существует");
+                }
+        );
+        List<BookingDto> complete = bookingDtos.stream()
+                .filter(BookingServiceImpl::isComplete)
+                .collect(Collectors.toList());
+        Map<Integer, Item> items = itemRepository.findAllById(complete.stream()
+                        .map(BookingDto::getItemId)
+                        .distinct()
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        Map<Integer, List<BookingDto>> approved = findApprovedIntervals(complete);
+
+        LocalDateTime now = LocalDateTime.now();
+        String[] errors = new String[bookingDtos.size()];
+        Map<Integer, Booking> created = new LinkedHashMap<>();
+        for (int i = 0; i < bookingDtos.size(); i++) {
+            BookingDto bookingDto = bookingDtos.get(i);
+            try {
+                if (!isComplete(bookingDto)) {
+                    throw new ValidationException("Вещь и даты бронирования должны быть заполнены");
+                }
+                if (bookingDto.getStart().isBefore(now)) {
+                    throw new ValidationException("Дата начала бронирования не может быть в прошлом");
+                }
+                Item item = items.get(bookingDto.getItemId());
+                if (item == null) {
+                    throw new ItemNotFoundException("Вещь не найдена.");
+                }
+                bookingValidation(bookingDto, user, item);
+                if (overlaps(approved.get(item.getId()), bookingDto)) {
+                    throw new ValidationException("Вещь уже забронирована на пересекающийся период");
+                }
+                created.put(i, BookingDtoMapper.toBooking(user, item, bookingDto));
+            } catch (ValidationException | ItemNotFoundException e) {
+                errors[i] = e.getMessage();
+            }
+        }
+        bookingRepository.saveAll(created.values());
+
+        List<BookingBulkResultDto> results = new ArrayList<>();
+        for (int i = 0; i < bookingDtos.size(); i++) {
+            Booking booking = created.get(i);
+            results.add(booking == null
+                    ? BookingBulkResultDto.builder().error(errors[i]).build()
+                    : bulkResult(booking));
+        }
+        return results;
+    }
+
+    @Override
+    @Transactional
+    public List<BookingBulkResultDto> updateAll(Integer userId, List<Integer> bookingIds, Boolean approved) {
+        log.info("Массовое обновление статуса {} бронирований владельцем id:{}", bookingIds.size(), userId);
+        checkBulkSize(bookingIds.size());
+        List<Integer> ids = bookingIds.stream()
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Integer, Booking> bookings = bookingRepository.findAllByIdIn(ids)
+                .stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+
+        Map<Integer, String> errors = new HashMap<>();
+        List<Booking> accepted = new ArrayList<>();
+        for (Integer id : ids) {
+            Booking booking = bookings.get(id);
+            if (booking == null) {
+                errors.put(id, "Бронь не найдена.");
+            } else if (!booking.getItem().getOwner().getId().equals(userId)) {
+                errors.put(id, "Пользователь не является владельцем");
+            } else if (!booking.getStatus().equals(BookingStatus.WAITING)) {
+                errors.put(id, "Бронь не cо статусом WAITING");
+            } else {
+                accepted.add(booking);
+            }
+        }
+        if (approved && !accepted.isEmpty()) {
+            // блокировки берутся в порядке id вещей, чтобы параллельные пакеты не ждали друг друга по кругу
+            itemRepository.findAllByIdForUpdate(accepted.stream()
+                    .map(booking -> booking.getItem().getId())
+                    .distinct()
+                    .collect(Collectors.toList()));
+            Map<Integer, List<BookingDto>> approvedIntervals = findApprovedIntervals(accepted.stream()
+                    .map(BookingServiceImpl::toInterval)
+                    .collect(Collectors.toList()));
+            for (Booking booking : List.copyOf(accepted)) {
+                BookingDto interval = toInterval(booking);
+                List<BookingDto> itemIntervals = approvedIntervals.computeIfAbsent(interval.getItemId(),
+                        itemId -> new ArrayList<>());
+                if (overlaps(itemIntervals, interval)) {
+                    errors.put(booking.getId(), "Вещь уже забронирована на пересекающийся период");
+                    accepted.remove(booking);
+                } else {
+                    itemIntervals.add(interval);
+                }
+            }
+        }
+        BookingStatus newStatus = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+        accepted.forEach(booking -> booking.setStatus(newStatus));
+        bookingRepository.saveAll(accepted);
+
+        return ids.stream()
+                .map(id -> errors.containsKey(id)
+                        ? BookingBulkResultDto.builder().bookingId(id).error(errors.get(id)).build()
+                        : bulkResult(bookings.get(id)))
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -79,85 +221,121 @@ public class BookingServiceImpl implements BookingService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<BookingDtoOut> findAll(Integer bookerId, String state, Integer from, Integer size) {
+    public List<BookingDtoOut> findAll(Integer bookerId, String state, Integer from, Integer size, String cursor) {
         log.info("получение списка всех бронирований текущего пользователя с id: {} и статусом {}", bookerId, state);
-        userRepository.findById(bookerId).orElseThrow(() -> {
-                    return new UserNotFoundException("Пользователя с " + bookerId + " не существует");
-                }
-        );
-        Pageable pageable = PageRequest.of(from / size, size);
-        switch (validState(state)) {
+        if (!userExistenceCache.exists(bookerId)) {
+            throw new UserNotFoundException("Пользователя с " + bookerId + " не существует");
+        }
+        BookingState bookingState = validState(state);
+        List<BookingView> bookings = cursor == null
+                ? findBookerBookings(bookerId, bookingState, PageRequest.of(from / size, size))
+                : findBookerBookingsBefore(bookerId, bookingState, BookingCursor.decode(cursor), PageRequest.of(0, size));
+        return bookings.stream()
+                .map(BookingDtoMapper::toBookingOut)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingDtoOut> findAllOwner(Integer ownerId, String state, Integer from, Integer size, String cursor) {
+        log.info("получение списка всех бронирований текущего владельца с id: {} и статусом {}", ownerId, state);
+        if (!userExistenceCache.exists(ownerId)) {
+            throw new UserNotFoundException("Пользователя с " + ownerId + " не существует");
+        }
+        BookingState bookingState = validState(state);
+        List<Booking> bookings = cursor == null
+                ? findOwnerBookings(ownerId, bookingState, PageRequest.of(from / size, size))
+                : findOwnerBookingsBefore(ownerId, bookingState, BookingCursor.decode(cursor), PageRequest.of(0, size));
+        return bookings.stream()
+                .map(BookingDtoMapper::toBookingOut)
+                .collect(Collectors.toList());
+    }
+
+    private List<BookingView> findBookerBookings(Integer bookerId, BookingState state, Pageable pageable) {
+        switch (state) {
             case ALL:
-                return bookingRepository.findAllBookingsByBookerId(bookerId, pageable).stream()
-                        .map(BookingDtoMapper::toBookingOut)
-                        .collect(Collectors.toList());
+                return bookingRepository.findAllBookingsByBookerId(bookerId, pageable);
             case CURRENT:
-                return bookingRepository.findAllCurrentBookingsByBookerId(bookerId, LocalDateTime.now(), pageable).stream()
-                        .map(BookingDtoMapper::toBookingOut)
-                        .collect(Collectors.toList());
-
+                return bookingRepository.findAllCurrentBookingsByBookerId(bookerId, LocalDateTime.now(), pageable);
             case PAST:
-                return bookingRepository.findAllPastBookingsByBookerId(bookerId, LocalDateTime.now(), pageable).stream()
-                        .map(BookingDtoMapper::toBookingOut)
-                        .collect(Collectors.toList());
-
+                return bookingRepository.findAllPastBookingsByBookerId(bookerId, LocalDateTime.now(), pageable);
             case FUTURE:
-                return bookingRepository.findAllFutureBookingsByBookerId(bookerId, LocalDateTime.now(), pageable).stream()
-                        .map(BookingDtoMapper::toBookingOut)
-                        .collect(Collectors.toList());
-
+                return bookingRepository.findAllFutureBookingsByBookerId(bookerId, LocalDateTime.now(), pageable);
             case WAITING:
-                return bookingRepository.findAllWaitingBookingsByBookerId(bookerId, LocalDateTime.now(), pageable).stream()
-                        .map(BookingDtoMapper::toBookingOut)
-                        .collect(Collectors.toList());
-
+                return bookingRepository.findAllWaitingBookingsByBookerId(bookerId, LocalDateTime.now(), pageable);
             case REJECTED:
-                return bookingRepository.findAllRejectedBookingsByBookerId(bookerId, LocalDateTime.now(), pageable).stream()
-                        .map(BookingDtoMapper::toBookingOut)
-                        .collect(Collectors.toList());
+                return bookingRepository.findAllRejectedBookingsByBookerId(bookerId, LocalDateTime.now(), pageable);
             default:
                 throw new IllegalArgumentException("Unknown state: UNSUPPORTED_STATUS");
         }
     }
 
-    @Override
-    @Transactional(readOnly = true)
-    public List<BookingDtoOut> findAllOwner(Integer ownerId, String state, Integer from, Integer size) {
-        log.info("получение списка всех бронирований текущего владельца с id: {} и статусом {}", ownerId, state);
-        userRepository.findById(ownerId).orElseThrow(() -> {
-                    return new UserNotFoundException("Пользователя с " + ownerId + " не существует");
-                }
-        );
-        Pageable pageable = PageRequest.of(from / size, size);
-        switch (validState(state)) {
+    private List<BookingView> findBookerBookingsBefore(Integer bookerId, BookingState state, BookingCursor cursor,
+                                                       Pageable pageable) {
+        LocalDateTime start = cursor.getStart();
+        Integer id = cursor.getId();
+        switch (state) {
             case ALL:
-                return bookingRepository.findAllBookingsByOwnerId(ownerId, pageable).stream()
-                        .map(BookingDtoMapper::toBookingOut)
-                        .collect(Collectors.toList());
+                return bookingRepository.findAllBookingsByBookerIdBefore(bookerId, start, id, pageable);
             case CURRENT:
-                return bookingRepository.findAllCurrentBookingsByOwnerId(ownerId, LocalDateTime.now(), pageable).stream()
-                        .map(BookingDtoMapper::toBookingOut)
-                        .collect(Collectors.toList());
-
+                return bookingRepository.findAllCurrentBookingsByBookerIdBefore(bookerId, LocalDateTime.now(),
+                        start, id, pageable);
             case PAST:
-                return bookingRepository.findAllPastBookingsByOwnerId(ownerId, LocalDateTime.now(), pageable).stream()
-                        .map(BookingDtoMapper::toBookingOut)
-                        .collect(Collectors.toList());
-
+                return bookingRepository.findAllPastBookingsByBookerIdBefore(bookerId, LocalDateTime.now(),
+                        start, id, pageable);
             case FUTURE:
-                return bookingRepository.findAllFutureBookingsByOwnerId(ownerId, LocalDateTime.now(), pageable).stream()
-                        .map(BookingDtoMapper::toBookingOut)
-                        .collect(Collectors.toList());
+                return bookingRepository.findAllFutureBookingsByBookerIdBefore(bookerId, LocalDateTime.now(),
+                        start, id, pageable);
+            case WAITING:
+                return bookingRepository.findAllWaitingBookingsByBookerIdBefore(bookerId, LocalDateTime.now(),
+                        start, id, pageable);
+            case REJECTED:
+                return bookingRepository.findAllRejectedBookingsByBookerIdBefore(bookerId, start, id, pageable);
+            default:
+                throw new IllegalArgumentException("Unknown state: UNSUPPORTED_STATUS");
+        }
+    }
 
+    private List<Booking> findOwnerBookings(Integer ownerId, BookingState state, Pageable pageable) {
+        switch (state) {
+            case ALL:
+                return bookingRepository.findAllBookingsByOwnerId(ownerId, pageable);
+            case CURRENT:
+                return bookingRepository.findAllCurrentBookingsByOwnerId(ownerId, LocalDateTime.now(), pageable);
+            case PAST:
+                return bookingRepository.findAllPastBookingsByOwnerId(ownerId, LocalDateTime.now(), pageable);
+            case FUTURE:
+                return bookingRepository.findAllFutureBookingsByOwnerId(ownerId, LocalDateTime.now(), pageable);
             case WAITING:
-                return bookingRepository.findAllWaitingBookingsByOwnerId(ownerId, LocalDateTime.now(), pageable).stream()
-                        .map(BookingDtoMapper::toBookingOut)
-                        .collect(Collectors.toList());
+                return bookingRepository.findAllWaitingBookingsByOwnerId(ownerId, LocalDateTime.now(), pageable);
+            case REJECTED:
+                return bookingRepository.findAllRejectedBookingsByOwnerId(ownerId, pageable);
+            default:
+                throw new IllegalArgumentException("Unknown state: UNSUPPORTED_STATUS");
+        }
+    }
 
+    private List<Booking> findOwnerBookingsBefore(Integer ownerId, BookingState state, BookingCursor cursor,
+                                                  Pageable pageable) {
+        LocalDateTime start = cursor.getStart();
+        Integer id = cursor.getId();
+        switch (state) {
+            case ALL:
+                return bookingRepository.findAllBookingsByOwnerIdBefore(ownerId, start, id, pageable);
+            case CURRENT:
+                return bookingRepository.findAllCurrentBookingsByOwnerIdBefore(ownerId, LocalDateTime.now(),
+                        start, id, pageable);
+            case PAST:
+                return bookingRepository.findAllPastBookingsByOwnerIdBefore(ownerId, LocalDateTime.now(),
+                        start, id, pageable);
+            case FUTURE:
+                return bookingRepository.findAllFutureBookingsByOwnerIdBefore(ownerId, LocalDateTime.now(),
+                        start, id, pageable);
+            case WAITING:
+                return bookingRepository.findAllWaitingBookingsByOwnerIdBefore(ownerId, LocalDateTime.now(),
+                        start, id, pageable);
             case REJECTED:
-                return bookingRepository.findAllRejectedBookingsByOwnerId(ownerId, pageable).stream()
-                        .map(BookingDtoMapper::toBookingOut)
-                        .collect(Collectors.toList());
+                return bookingRepository.findAllRejectedBookingsByOwnerIdBefore(ownerId, start, id, pageable);
             default:
                 throw new IllegalArgumentException("Unknown state: UNSUPPORTED_STATUS");
         }
@@ -175,6 +353,68 @@ public class BookingServiceImpl implements BookingService {
         }
     }
 
+    private void checkOverlap(Integer itemId, LocalDateTime start, LocalDateTime end, Integer bookingId) {
+        // подтверждённые бронирования вещи не пересекаются, поэтому достаточно проверить ближайшее слева
+        bookingRepository.findLatestApprovedEndStartingBefore(itemId, end, bookingId)
+                .filter(latestEnd -> latestEnd.isAfter(start))
+                .ifPresent(latestEnd -> {
+                    throw new ValidationException("Вещь уже забронирована на пересекающийся период");
+                });
+    }
+
+    private void checkBulkSize(int size) {
+        if (size == 0 || size > MAX_BULK_BOOKINGS) {
+            throw new ValidationException("Количество бронирований должно быть от 1 до " + MAX_BULK_BOOKINGS);
+        }
+    }
+
+    private BookingBulkResultDto bulkResult(Booking booking) {
+        BookingDtoOut bookingDtoOut = BookingDtoMapper.toBookingOut(booking);
+        bookingTimelineCache.onBookingChanged(bookingDtoOut);
+        return BookingBulkResultDto.builder()
+                .bookingId(booking.getId())
+                .booking(bookingDtoOut)
+                .build();
+    }
+
+    // подтверждённые бронирования вещей, пересекающие общий период всех переданных интервалов
+    private Map<Integer, List<BookingDto>> findApprovedIntervals(List<BookingDto> intervals) {
+        if (intervals.isEmpty()) {
+            return new HashMap<>();
+        }
+        List<Integer> itemIds = intervals.stream()
+                .map(BookingDto::getItemId)
+                .distinct()
+                .collect(Collectors.toList());
+        LocalDateTime from = intervals.stream()
+                .map(BookingDto::getStart)
+                .min(Comparator.naturalOrder())
+                .orElseThrow();
+        LocalDateTime to = intervals.stream()
+                .map(BookingDto::getEnd)
+                .max(Comparator.naturalOrder())
+                .orElseThrow();
+        return bookingRepository.findApprovedIntervals(itemIds, from, to)
+                .stream()
+                .map(interval -> new BookingDto(interval.getItemId(), interval.getStart(), interval.getEnd()))
+                .collect(Collectors.groupingBy(BookingDto::getItemId, Collectors.toCollection(ArrayList::new)));
+    }
+
+    private static boolean overlaps(List<BookingDto> intervals, BookingDto candidate) {
+        return intervals != null && intervals.stream()
+                .anyMatch(interval -> interval.getStart().isBefore(candidate.getEnd())
+                        && interval.getEnd().isAfter(candidate.getStart()));
+    }
+
+    private static boolean isComplete(BookingDto bookingDto) {
+        return bookingDto != null && bookingDto.getItemId() != null
+                && bookingDto.getStart() != null && bookingDto.getEnd() != null;
+    }
+
+    private static BookingDto toInterval(Booking booking) {
+        return new BookingDto(booking.getItem().getId(), booking.getStart(), booking.getEnd());
+    }
+
     private BookingState validState(String bookingState) {
         BookingState state = BookingState.from(bookingState);
         if (state == null) {
@@ -0,0 +1,301 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingDtoOut;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Ограниченный по размеру LRU-кэш подтверждённых бронирований вещей с временем жизни записи.
+ * Для вещи хранится только срез: последнее начавшееся бронирование и ближайшие будущие,
+ * поэтому вещь с долгой историей стоит столько же, сколько оконный запрос последнего и следующего бронирования.
+ */
+@Slf4j
+@Component
+public class BookingTimelineCache {
+    private static final Comparator<BookingDtoOut> BY_START = Comparator.comparing(BookingDtoOut::getStart)
+            .thenComparing(BookingDtoOut::getId);
+    private static final int VERSION_STRIPES = 1024;
+
+    private final BookingRepository bookingRepository;
+    private final boolean enabled;
+    private final int maxItems;
+    private final int maxBookings;
+    private final int maxUpcoming;
+    private final long ttlMillis;
+    private final Map<Integer, Timeline> timelines;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    // версии вещей по полосам: изменение одной вещи не отменяет параллельные загрузки остальных
+    private final long[] itemVersions = new long[VERSION_STRIPES];
+    private long bookerVersion;
+    private long bookings;
+
+    public BookingTimelineCache(BookingRepository bookingRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${shareit.booking.timeline.enabled:true}") boolean enabled,
+                                @Value("${shareit.booking.timeline.max-items:10000}") int maxItems,
+                                @Value("${shareit.booking.timeline.max-bookings:100000}") int maxBookings,
+                                @Value("${shareit.booking.timeline.max-upcoming:20}") int maxUpcoming,
+                                @Value("${shareit.booking.timeline.ttl-ms:60000}") long ttlMillis) {
+        this.bookingRepository = bookingRepository;
+        this.enabled = enabled;
+        this.maxItems = maxItems;
+        this.maxBookings = maxBookings;
+        this.maxUpcoming = maxUpcoming;
+        this.ttlMillis = ttlMillis;
+        this.timelines = new LinkedHashMap<>(16, 0.75f, true);
+        FunctionCounter.builder("shareit.booking.timeline.hits", hits, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("shareit.booking.timeline.misses", misses, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("shareit.booking.timeline.evictions", evictions, AtomicLong::get)
+                .register(meterRegistry);
+        Gauge.builder("shareit.booking.timeline.size", this, BookingTimelineCache::size).register(meterRegistry);
+        Gauge.builder("shareit.booking.timeline.bookings", this, BookingTimelineCache::bookings)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Возвращает последнее и следующее подтверждённое бронирование для каждой вещи из списка.
+     */
+    public List<BookingDtoOut> findLastAndNext(Collection<Integer> itemIds, LocalDateTime time) {
+        if (!enabled) {
+            return bookingRepository.findLastAndNextBookings(itemIds, time)
+                    .stream()
+                    .map(BookingDtoMapper::toBookingOut)
+                    .collect(Collectors.toList());
+        }
+        Map<Integer, Timeline> found = new HashMap<>();
+        Map<Integer, Long> missing = new LinkedHashMap<>();
+        long loadBookerVersion;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            for (Integer itemId : itemIds) {
+                Timeline timeline = timelines.get(itemId);
+                if (timeline != null && timeline.expiresAt > now && timeline.covers(time)) {
+                    found.put(itemId, timeline);
+                } else {
+                    missing.put(itemId, itemVersions[stripe(itemId)]);
+                }
+            }
+            loadBookerVersion = bookerVersion;
+        }
+        hits.addAndGet(found.size());
+        if (!missing.isEmpty()) {
+            misses.addAndGet(missing.size());
+            found.putAll(load(missing, time, loadBookerVersion));
+        }
+        List<BookingDtoOut> result = new ArrayList<>();
+        for (Timeline timeline : found.values()) {
+            int next = firstAfter(timeline.bookings, time);
+            if (next > 0) {
+                result.add(timeline.bookings.get(next - 1));
+            }
+            if (next < timeline.bookings.size()) {
+                result.add(timeline.bookings.get(next));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Учитывает изменение бронирования после фиксации транзакции.
+     */
+    public void onBookingChanged(BookingDtoOut booking) {
+        afterCommit(() -> apply(booking));
+    }
+
+    /**
+     * Сбрасывает данные вещи после фиксации транзакции, например при изменении её названия.
+     */
+    public void evict(Integer itemId) {
+        afterCommit(() -> {
+            synchronized (this) {
+                itemVersions[stripe(itemId)]++;
+                remove(itemId);
+            }
+        });
+    }
+
+    /**
+     * Сбрасывает после фиксации транзакции вещи, в бронированиях которых арендатором указан пользователь.
+     * Загрузки, шедшие одновременно с изменением, кэшируют только вещи без бронирований.
+     */
+    public void evictBooker(Integer bookerId) {
+        afterCommit(() -> {
+            synchronized (this) {
+                bookerVersion++;
+                Iterator<Timeline> iterator = timelines.values().iterator();
+                while (iterator.hasNext()) {
+                    Timeline timeline = iterator.next();
+                    if (timeline.bookings.stream().anyMatch(booking -> booking.getBookerId().equals(bookerId))) {
+                        bookings -= timeline.bookings.size();
+                        iterator.remove();
+                    }
+                }
+            }
+        });
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public synchronized int size() {
+        return timelines.size();
+    }
+
+    public synchronized long bookings() {
+        return bookings;
+    }
+
+    private Map<Integer, Timeline> load(Map<Integer, Long> itemVersionsAtLoad, LocalDateTime time,
+                                        long loadBookerVersion) {
+        Map<Integer, List<BookingDtoOut>> rows = bookingRepository
+                .findApprovedSlices(new ArrayList<>(itemVersionsAtLoad.keySet()), time, maxUpcoming + 1)
+                .stream()
+                .map(BookingDtoMapper::toBookingOut)
+                .collect(Collectors.groupingBy(BookingDtoOut::getItemId));
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        Map<Integer, Timeline> loaded = new HashMap<>();
+        for (Integer itemId : itemVersionsAtLoad.keySet()) {
+            List<BookingDtoOut> slice = new ArrayList<>(rows.getOrDefault(itemId, List.of()));
+            slice.sort(BY_START);
+            boolean hasPast = !slice.isEmpty() && !slice.get(0).getStart().isAfter(time);
+            boolean truncated = slice.size() - (hasPast ? 1 : 0) > maxUpcoming;
+            if (truncated) {
+                slice.remove(slice.size() - 1);
+            }
+            loaded.put(itemId, new Timeline(List.copyOf(slice), hasPast, truncated, expiresAt));
+        }
+        synchronized (this) {
+            loaded.forEach((itemId, timeline) -> {
+                // пока шла загрузка, бронирования вещи или имя арендатора могли измениться: такой срез не кэшируем
+                boolean itemChanged = itemVersions[stripe(itemId)] != itemVersionsAtLoad.get(itemId);
+                boolean bookerChanged = bookerVersion != loadBookerVersion && !timeline.bookings.isEmpty();
+                if (!itemChanged && !bookerChanged) {
+                    put(itemId, timeline);
+                }
+            });
+        }
+        return loaded;
+    }
+
+    private synchronized void apply(BookingDtoOut booking) {
+        Timeline timeline = timelines.get(booking.getItemId());
+        boolean cached = timeline != null && timeline.bookings.stream()
+                .anyMatch(existing -> existing.getId().equals(booking.getId()));
+        if (booking.getStatus() != BookingStatus.APPROVED && !cached) {
+            // статус меняется только из WAITING, поэтому неподтверждённая бронь подтверждённых интервалов не меняет
+            return;
+        }
+        itemVersions[stripe(booking.getItemId())]++;
+        remove(booking.getItemId());
+    }
+
+    private void put(Integer itemId, Timeline timeline) {
+        remove(itemId);
+        if (timeline.bookings.size() > maxBookings) {
+            return;
+        }
+        timelines.put(itemId, timeline);
+        bookings += timeline.bookings.size();
+        Iterator<Map.Entry<Integer, Timeline>> eldest = timelines.entrySet().iterator();
+        while (timelines.size() > maxItems || bookings > maxBookings) {
+            bookings -= eldest.next().getValue().bookings.size();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(Integer itemId) {
+        Timeline removed = timelines.remove(itemId);
+        if (removed != null) {
+            bookings -= removed.bookings.size();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static int stripe(Integer itemId) {
+        return Math.floorMod(itemId, VERSION_STRIPES);
+    }
+
+    private static int firstAfter(List<BookingDtoOut> timeline, LocalDateTime time) {
+        int low = 0;
+        int high = timeline.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timeline.get(middle).getStart().isAfter(time)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Срез бронирований вещи: последнее начавшееся на момент загрузки (если было) и не более max-upcoming будущих.
+     */
+    @RequiredArgsConstructor
+    private static final class Timeline {
+        private final List<BookingDtoOut> bookings;
+        private final boolean hasPast;
+        private final boolean truncated;
+        private final long expiresAt;
+
+        /**
+         * Срез отвечает на момент времени, если последнее бронирование на этот момент в нём есть,
+         * а у обрезанного среза в нём есть и следующее.
+         */
+        boolean covers(LocalDateTime time) {
+            if (hasPast && bookings.get(0).getStart().isAfter(time)) {
+                return false;
+            }
+            return !truncated || firstAfter(bookings, time) < bookings.size();
+        }
+    }
+}
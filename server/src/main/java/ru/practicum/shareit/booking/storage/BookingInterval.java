@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.storage;
+
+import java.time.LocalDateTime;
+
+public interface BookingInterval {
+    Integer getItemId();
+
+    LocalDateTime getStart();
+
+    LocalDateTime getEnd();
+}
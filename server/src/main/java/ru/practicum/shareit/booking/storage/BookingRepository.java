@@ -1,120 +1,259 @@
 package ru.practicum.shareit.booking.storage;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.booking.model.Booking;
-import ru.practicum.shareit.booking.model.BookingStatus;
-import ru.practicum.shareit.item.model.Item;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Integer> {
-    @Query(value = "SELECT b.* FROM bookings as b " +
-            "JOIN items as i ON i.id = b.item_id " +
+    String BOOKING_DETAILS = "Booking.details";
+
+    String BOOKING_VIEW_COLUMNS = "SELECT b.id AS \"id\", b.start_date AS \"start\", b.end_date AS \"end\", " +
+            "b.status AS \"status\", i.id AS \"itemId\", i.name AS \"itemName\", " +
+            "i.description AS \"itemDescription\", i.available AS \"itemAvailable\", " +
+            "i.request_id AS \"itemRequestId\", u.id AS \"bookerId\", u.name AS \"bookerName\", " +
+            "u.email AS \"bookerEmail\" ";
+
+    String BOOKING_VIEW_JOINS = "JOIN items as i ON i.id = b.item_id " +
+            "JOIN users as u ON u.id = b.booker_id ";
+
+    String BOOKING_VIEW = BOOKING_VIEW_COLUMNS + "FROM bookings as b " + BOOKING_VIEW_JOINS;
+
+    @Query(value = BOOKING_VIEW +
             "WHERE b.booker_id = ?1 " +
-            "ORDER BY b.start_date DESC", nativeQuery = true)
-    List<Booking> findAllBookingsByBookerId(Integer userId, Pageable pageable);
+            "ORDER BY b.start_date DESC, b.id DESC", nativeQuery = true)
+    List<BookingView> findAllBookingsByBookerId(Integer userId, Pageable pageable);
 
 
-    @Query(value = "SELECT b.* FROM bookings as b " +
-            "JOIN items as i ON i.id = b.item_id " +
+    @Query(value = BOOKING_VIEW +
             "WHERE b.booker_id = ?1 " +
             "AND ?2 BETWEEN b.start_date AND b.end_date " +
-            "ORDER BY b.start_date DESC", nativeQuery = true)
-    List<Booking> findAllCurrentBookingsByBookerId(Integer bookerId, LocalDateTime currentTime, Pageable pageable);
+            "ORDER BY b.start_date DESC, b.id DESC", nativeQuery = true)
+    List<BookingView> findAllCurrentBookingsByBookerId(Integer bookerId, LocalDateTime currentTime, Pageable pageable);
 
-    @Query(value = "SELECT b.* FROM bookings as b " +
-            "JOIN items as i ON i.id = b.item_id " +
+    @Query(value = BOOKING_VIEW +
             "WHERE b.booker_id = ?1 " +
             "AND b.end_date < ?2 " +
-            "ORDER BY b.start_date DESC", nativeQuery = true)
-    List<Booking> findAllPastBookingsByBookerId(Integer bookerId, LocalDateTime currentTime, Pageable pageable);
+            "ORDER BY b.start_date DESC, b.id DESC", nativeQuery = true)
+    List<BookingView> findAllPastBookingsByBookerId(Integer bookerId, LocalDateTime currentTime, Pageable pageable);
 
 
-    @Query(value = "SELECT b.* FROM bookings as b " +
-            "JOIN items as i ON i.id = b.item_id " +
+    @Query(value = BOOKING_VIEW +
             "WHERE b.booker_id = ?1 " +
             "AND b.start_date > ?2 " +
-            "ORDER BY b.start_date DESC", nativeQuery = true)
-    List<Booking> findAllFutureBookingsByBookerId(Integer bookerId, LocalDateTime currentTime, Pageable pageable);
+            "ORDER BY b.start_date DESC, b.id DESC", nativeQuery = true)
+    List<BookingView> findAllFutureBookingsByBookerId(Integer bookerId, LocalDateTime currentTime, Pageable pageable);
 
-    @Query(value = "SELECT b.* FROM bookings as b " +
-            "JOIN items as i ON i.id = b.item_id " +
+    @Query(value = BOOKING_VIEW +
             "WHERE b.booker_id = ?1 " +
             "AND b.status = 'WAITING' " +
             "AND b.start_date > ?2 " +
-            "ORDER BY b.start_date DESC", nativeQuery = true)
-    List<Booking> findAllWaitingBookingsByBookerId(Integer bookerId, LocalDateTime currentTime, Pageable pageable);
+            "ORDER BY b.start_date DESC, b.id DESC", nativeQuery = true)
+    List<BookingView> findAllWaitingBookingsByBookerId(Integer bookerId, LocalDateTime currentTime, Pageable pageable);
 
-    @Query(value = "SELECT b.* FROM bookings as b " +
-            "JOIN items as i ON i.id = b.item_id " +
+    @Query(value = BOOKING_VIEW +
             "WHERE b.booker_id = ?1 " +
             "AND b.status = 'REJECTED' " +
-            "ORDER BY b.start_date DESC", nativeQuery = true)
-    List<Booking> findAllRejectedBookingsByBookerId(Integer bookerId, LocalDateTime currentTime, Pageable pageable);
+            "ORDER BY b.start_date DESC, b.id DESC", nativeQuery = true)
+    List<BookingView> findAllRejectedBookingsByBookerId(Integer bookerId, LocalDateTime currentTime, Pageable pageable);
 
-    @Query(value = "SELECT b.* FROM bookings as b " +
-            "JOIN items as i ON i.id = b.item_id  " +
-            "WHERE i.owner_id = ?1 " +
-            "ORDER BY b.start_date DESC", nativeQuery = true)
-    List<Booking> findAllBookingsByOwnerId(Integer ownerId, Pageable pageable);
+    @Query(value = BOOKING_VIEW +
+            "WHERE b.booker_id = ?1 " +
+            "AND (b.start_date < ?2 OR (b.start_date = ?2 AND b.id < ?3)) " +
+            "ORDER BY b.start_date DESC, b.id DESC", nativeQuery = true)
+    List<BookingView> findAllBookingsByBookerIdBefore(Integer bookerId, LocalDateTime cursorStart, Integer cursorId, Pageable pageable);
 
-    @Query(value = "SELECT b.* FROM bookings as b " +
-            "JOIN items as i ON i.id = b.item_id " +
-            "WHERE i.owner_id = ?1 " +
+    @Query(value = BOOKING_VIEW +
+            "WHERE b.booker_id = ?1 " +
             "AND ?2 BETWEEN b.start_date AND b.end_date " +
-            "ORDER BY b.start_date DESC", nativeQuery = true)
-    List<Booking> findAllCurrentBookingsByOwnerId(Integer ownerId, LocalDateTime currentTime, Pageable pageable);
+            "AND (b.start_date < ?3 OR (b.start_date = ?3 AND b.id < ?4)) " +
+            "ORDER BY b.start_date DESC, b.id DESC", nativeQuery = true)
+    List<BookingView> findAllCurrentBookingsByBookerIdBefore(Integer bookerId, LocalDateTime currentTime, LocalDateTime cursorStart, Integer cursorId, Pageable pageable);
 
-    @Query(value = "SELECT b.* FROM bookings as b " +
-            "JOIN items as i ON i.id = b.item_id " +
-            "WHERE i.owner_id = ?1 " +
+    @Query(value = BOOKING_VIEW +
+            "WHERE b.booker_id = ?1 " +
             "AND b.end_date < ?2 " +
-            "ORDER BY b.start_date DESC", nativeQuery = true)
-    List<Booking> findAllPastBookingsByOwnerId(Integer ownerId, LocalDateTime currentTime, Pageable pageable);
+            "AND (b.start_date < ?3 OR (b.start_date = ?3 AND b.id < ?4)) " +
+            "ORDER BY b.start_date DESC, b.id DESC", nativeQuery = true)
+    List<BookingView> findAllPastBookingsByBookerIdBefore(Integer bookerId, LocalDateTime currentTime, LocalDateTime cursorStart, Integer cursorId, Pageable pageable);
 
-    @Query(value = "SELECT b.* FROM bookings as b " +
-            "JOIN items as i ON i.id = b.item_id " +
-            "WHERE i.owner_id = ?1 " +
+    @Query(value = BOOKING_VIEW +
+            "WHERE b.booker_id = ?1 " +
             "AND b.start_date > ?2 " +
-            "ORDER BY b.start_date DESC", nativeQuery = true)
-    List<Booking> findAllFutureBookingsByOwnerId(Integer ownerId, LocalDateTime currentTime, Pageable pageable);
+            "AND (b.start_date < ?3 OR (b.start_date = ?3 AND b.id < ?4)) " +
+            "ORDER BY b.start_date DESC, b.id DESC", nativeQuery = true)
+    List<BookingView> findAllFutureBookingsByBookerIdBefore(Integer bookerId, LocalDateTime currentTime, LocalDateTime cursorStart, Integer cursorId, Pageable pageable);
 
-    @Query(value = "SELECT b.* FROM bookings as b " +
-            "JOIN items as i ON i.id = b.item_id " +
-            "WHERE i.owner_id = ?1 " +
+    @Query(value = BOOKING_VIEW +
+            "WHERE b.booker_id = ?1 " +
             "AND b.status = 'WAITING' " +
             "AND b.start_date > ?2 " +
-            "ORDER BY b.start_date DESC", nativeQuery = true)
-    List<Booking> findAllWaitingBookingsByOwnerId(Integer ownerId, LocalDateTime currentTime, Pageable pageable);
+            "AND (b.start_date < ?3 OR (b.start_date = ?3 AND b.id < ?4)) " +
+            "ORDER BY b.start_date DESC, b.id DESC", nativeQuery = true)
+    List<BookingView> findAllWaitingBookingsByBookerIdBefore(Integer bookerId, LocalDateTime currentTime, LocalDateTime cursorStart, Integer cursorId, Pageable pageable);
 
-    @Query(value = "SELECT b.* FROM bookings as b " +
-            "JOIN items as i ON i.id = b.item_id " +
-            "WHERE i.owner_id = ?1 " +
+    @Query(value = BOOKING_VIEW +
+            "WHERE b.booker_id = ?1 " +
             "AND b.status = 'REJECTED' " +
-            "ORDER BY b.start_date DESC", nativeQuery = true)
+            "AND (b.start_date < ?2 OR (b.start_date = ?2 AND b.id < ?3)) " +
+            "ORDER BY b.start_date DESC, b.id DESC", nativeQuery = true)
+    List<BookingView> findAllRejectedBookingsByBookerIdBefore(Integer bookerId, LocalDateTime cursorStart, Integer cursorId, Pageable pageable);
+
+    @EntityGraph(BOOKING_DETAILS)
+    @Query("SELECT b FROM Booking as b " +
+            "WHERE b.item.id IN (SELECT i.id FROM Item as i WHERE i.owner.id = ?1) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllBookingsByOwnerId(Integer ownerId, Pageable pageable);
+
+    @EntityGraph(BOOKING_DETAILS)
+    @Query("SELECT b FROM Booking as b " +
+            "WHERE b.item.id IN (SELECT i.id FROM Item as i WHERE i.owner.id = ?1) " +
+            "AND ?2 BETWEEN b.start AND b.end " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllCurrentBookingsByOwnerId(Integer ownerId, LocalDateTime currentTime, Pageable pageable);
+
+    @EntityGraph(BOOKING_DETAILS)
+    @Query("SELECT b FROM Booking as b " +
+            "WHERE b.item.id IN (SELECT i.id FROM Item as i WHERE i.owner.id = ?1) " +
+            "AND b.end < ?2 " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllPastBookingsByOwnerId(Integer ownerId, LocalDateTime currentTime, Pageable pageable);
+
+    @EntityGraph(BOOKING_DETAILS)
+    @Query("SELECT b FROM Booking as b " +
+            "WHERE b.item.id IN (SELECT i.id FROM Item as i WHERE i.owner.id = ?1) " +
+            "AND b.start > ?2 " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllFutureBookingsByOwnerId(Integer ownerId, LocalDateTime currentTime, Pageable pageable);
+
+    @EntityGraph(BOOKING_DETAILS)
+    @Query("SELECT b FROM Booking as b " +
+            "WHERE b.item.id IN (SELECT i.id FROM Item as i WHERE i.owner.id = ?1) " +
+            "AND b.status = ru.practicum.shareit.booking.model.BookingStatus.WAITING " +
+            "AND b.start > ?2 " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllWaitingBookingsByOwnerId(Integer ownerId, LocalDateTime currentTime, Pageable pageable);
+
+    @EntityGraph(BOOKING_DETAILS)
+    @Query("SELECT b FROM Booking as b " +
+            "WHERE b.item.id IN (SELECT i.id FROM Item as i WHERE i.owner.id = ?1) " +
+            "AND b.status = ru.practicum.shareit.booking.model.BookingStatus.REJECTED " +
+            "ORDER BY b.start DESC, b.id DESC")
     List<Booking> findAllRejectedBookingsByOwnerId(Integer ownerId, Pageable pageable);
 
-    @Query(value = "SELECT * FROM bookings as b " +
-            "JOIN items as i ON i.id = b.item_id " +
-            "WHERE b.item_id = ?1 " +
-            "AND b.start_date < ?2 " +
+    @EntityGraph(BOOKING_DETAILS)
+    @Query("SELECT b FROM Booking as b " +
+            "WHERE b.item.id IN (SELECT i.id FROM Item as i WHERE i.owner.id = ?1) " +
+            "AND (b.start < ?2 OR (b.start = ?2 AND b.id < ?3)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllBookingsByOwnerIdBefore(Integer ownerId, LocalDateTime cursorStart, Integer cursorId, Pageable pageable);
+
+    @EntityGraph(BOOKING_DETAILS)
+    @Query("SELECT b FROM Booking as b " +
+            "WHERE b.item.id IN (SELECT i.id FROM Item as i WHERE i.owner.id = ?1) " +
+            "AND ?2 BETWEEN b.start AND b.end " +
+            "AND (b.start < ?3 OR (b.start = ?3 AND b.id < ?4)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllCurrentBookingsByOwnerIdBefore(Integer ownerId, LocalDateTime currentTime, LocalDateTime cursorStart, Integer cursorId, Pageable pageable);
+
+    @EntityGraph(BOOKING_DETAILS)
+    @Query("SELECT b FROM Booking as b " +
+            "WHERE b.item.id IN (SELECT i.id FROM Item as i WHERE i.owner.id = ?1) " +
+            "AND b.end < ?2 " +
+            "AND (b.start < ?3 OR (b.start = ?3 AND b.id < ?4)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllPastBookingsByOwnerIdBefore(Integer ownerId, LocalDateTime currentTime, LocalDateTime cursorStart, Integer cursorId, Pageable pageable);
+
+    @EntityGraph(BOOKING_DETAILS)
+    @Query("SELECT b FROM Booking as b " +
+            "WHERE b.item.id IN (SELECT i.id FROM Item as i WHERE i.owner.id = ?1) " +
+            "AND b.start > ?2 " +
+            "AND (b.start < ?3 OR (b.start = ?3 AND b.id < ?4)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllFutureBookingsByOwnerIdBefore(Integer ownerId, LocalDateTime currentTime, LocalDateTime cursorStart, Integer cursorId, Pageable pageable);
+
+    @EntityGraph(BOOKING_DETAILS)
+    @Query("SELECT b FROM Booking as b " +
+            "WHERE b.item.id IN (SELECT i.id FROM Item as i WHERE i.owner.id = ?1) " +
+            "AND b.status = ru.practicum.shareit.booking.model.BookingStatus.WAITING " +
+            "AND b.start > ?2 " +
+            "AND (b.start < ?3 OR (b.start = ?3 AND b.id < ?4)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllWaitingBookingsByOwnerIdBefore(Integer ownerId, LocalDateTime currentTime, LocalDateTime cursorStart, Integer cursorId, Pageable pageable);
+
+    @EntityGraph(BOOKING_DETAILS)
+    @Query("SELECT b FROM Booking as b " +
+            "WHERE b.item.id IN (SELECT i.id FROM Item as i WHERE i.owner.id = ?1) " +
+            "AND b.status = ru.practicum.shareit.booking.model.BookingStatus.REJECTED " +
+            "AND (b.start < ?2 OR (b.start = ?2 AND b.id < ?3)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllRejectedBookingsByOwnerIdBefore(Integer ownerId, LocalDateTime cursorStart, Integer cursorId, Pageable pageable);
+
+    @Query(value = BOOKING_VIEW_COLUMNS +
+            "FROM (" +
+            "SELECT l.*, ROW_NUMBER() OVER (PARTITION BY l.item_id ORDER BY l.start_date DESC) AS rn " +
+            "FROM bookings as l " +
+            "WHERE l.item_id IN (?1) AND l.status = 'APPROVED' AND l.start_date <= ?2 " +
+            "UNION ALL " +
+            "SELECT n.*, ROW_NUMBER() OVER (PARTITION BY n.item_id ORDER BY n.start_date ASC) AS rn " +
+            "FROM bookings as n " +
+            "WHERE n.item_id IN (?1) AND n.status = 'APPROVED' AND n.start_date > ?2" +
+            ") as b " +
+            BOOKING_VIEW_JOINS +
+            "WHERE b.rn = 1", nativeQuery = true)
+    List<BookingView> findLastAndNextBookings(Collection<Integer> itemIds, LocalDateTime currentTime);
+
+    // последнее начавшееся подтверждённое бронирование каждой вещи и не более ?3 ближайших будущих
+    @Query(value = BOOKING_VIEW_COLUMNS +
+            "FROM (" +
+            "SELECT l.*, ROW_NUMBER() OVER (PARTITION BY l.item_id ORDER BY l.start_date DESC, l.id DESC) AS rn " +
+            "FROM bookings as l " +
+            "WHERE l.item_id IN (?1) AND l.status = 'APPROVED' AND l.start_date <= ?2 " +
+            "UNION ALL " +
+            "SELECT n.*, ROW_NUMBER() OVER (PARTITION BY n.item_id ORDER BY n.start_date ASC, n.id ASC) AS rn " +
+            "FROM bookings as n " +
+            "WHERE n.item_id IN (?1) AND n.status = 'APPROVED' AND n.start_date > ?2" +
+            ") as b " +
+            BOOKING_VIEW_JOINS +
+            "WHERE (b.start_date <= ?2 AND b.rn = 1) OR (b.start_date > ?2 AND b.rn <= ?3)", nativeQuery = true)
+    List<BookingView> findApprovedSlices(Collection<Integer> itemIds, LocalDateTime currentTime, Integer upcoming);
+
+    @Query(value = "SELECT b.item_id AS \"itemId\", b.start_date AS \"start\", b.end_date AS \"end\" " +
+            "FROM bookings as b " +
+            "WHERE b.item_id IN (?1) " +
+            "AND b.status IN ('APPROVED', 'WAITING') " +
+            "AND b.start_date < ?3 " +
+            "AND b.end_date > ?2 " +
+            "ORDER BY b.item_id, b.start_date", nativeQuery = true)
+    List<BookingInterval> findBusyIntervals(Collection<Integer> itemIds, LocalDateTime from, LocalDateTime to);
+
+    @Query(value = "SELECT b.item_id AS \"itemId\", b.start_date AS \"start\", b.end_date AS \"end\" " +
+            "FROM bookings as b " +
+            "WHERE b.item_id IN (?1) " +
             "AND b.status = 'APPROVED' " +
-            "ORDER BY b.start_date DESC LIMIT 1 ", nativeQuery = true)
-    Optional<Booking> getLastBooking(Integer idItem, LocalDateTime currentTime);
+            "AND b.start_date < ?3 " +
+            "AND b.end_date > ?2 " +
+            "ORDER BY b.item_id, b.start_date", nativeQuery = true)
+    List<BookingInterval> findApprovedIntervals(Collection<Integer> itemIds, LocalDateTime from, LocalDateTime to);
 
-    @Query(value = "SELECT * FROM bookings as b " +
-            "JOIN items as i ON i.id = b.item_id " +
+    @EntityGraph(BOOKING_DETAILS)
+    List<Booking> findAllByIdIn(Collection<Integer> bookingIds);
+
+    @Query(value = "SELECT b.end_date FROM bookings as b " +
             "WHERE b.item_id = ?1 " +
-            "AND b.start_date > ?2 " +
             "AND b.status = 'APPROVED' " +
-            "ORDER BY b.start_date ASC LIMIT 1 ", nativeQuery = true)
-    Optional<Booking> getNextBooking(Integer idItem, LocalDateTime currentTime);
+            "AND b.start_date < ?2 " +
+            "AND b.id <> ?3 " +
+            "ORDER BY b.start_date DESC LIMIT 1", nativeQuery = true)
+    Optional<LocalDateTime> findLatestApprovedEndStartingBefore(Integer itemId, LocalDateTime end, Integer excludedBookingId);
 
     @Query(value = "SELECT b.* FROM bookings as b " +
             "JOIN items as i ON i.id = b.item_id " +
@@ -123,8 +262,4 @@ public interface BookingRepository extends JpaRepository<Booking, Integer> {
             "AND b.status = 'APPROVED' " +
             "AND b.end_date < ?3 ", nativeQuery = true)
     List<Booking> findAllByUserBookings(Integer userId, Integer itemId, LocalDateTime now);
-
-    List<Booking> findAllByItemInAndStatusOrderByStartAsc(List<Item> items, BookingStatus status);
-
-    List<Booking> findAllByItemAndStatusOrderByStartAsc(Item item, BookingStatus bookingStatus);
 }
@@ -2,6 +2,7 @@ package ru.practicum.shareit.item;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -13,10 +14,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Slf4j
@@ -39,6 +42,14 @@ public class ItemController {
         return resultItem;
     }
 
+    @PostMapping("/import")
+    public List<ItemDto> importItems(@RequestBody List<ItemDto> items,
+                                     @RequestHeader("X-Sharer-User-Id") Integer ownerId) {
+        List<ItemDto> resultItems = itemService.importItems(items, ownerId);
+        log.info("Импортировано {} вещей пользователя id:{}", resultItems.size(), ownerId);
+        return resultItems;
+    }
+
     @PatchMapping("/{itemId}")
     public ItemDto updateItem(@RequestBody ItemDto item,
                               @RequestHeader("X-Sharer-User-Id") Integer ownerId,
@@ -65,16 +76,35 @@ public class ItemController {
         return ownerItems;
     }
 
+    @GetMapping("/batch")
+    public List<ItemDto> getItemsByIds(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                       @RequestParam List<Integer> ids) {
+        List<ItemDto> items = itemService.getItemsByIds(userId, ids);
+        log.info("Отправлены вещи {} пользователю id:{}", ids, userId);
+        return items;
+    }
+
     @GetMapping("/search")
     public List<ItemDto> getItemsBySearch(@RequestHeader("X-Sharer-User-Id") Integer userId,
                                           @RequestParam String text,
                                           @RequestParam(value = "from", defaultValue = "0") Integer from,
-                                          @RequestParam(value = "size", defaultValue = "10") Integer size) {
-        List<ItemDto> searchingItems = itemService.getItemsBySearch(userId, text, from, size);
+                                          @RequestParam(value = "size", defaultValue = "10") Integer size,
+                                          @RequestParam(value = "ranked", defaultValue = "false") Boolean ranked) {
+        List<ItemDto> searchingItems = itemService.getItemsBySearch(userId, text, from, size, ranked);
         log.info("Отправлен список вещей по поисковому запросу: '{}'", text);
         return searchingItems;
     }
 
+    @GetMapping("/availability")
+    public List<ItemAvailabilityDto> getAvailability(@RequestHeader("X-Sharer-User-Id") Integer userId,
+                                                     @RequestParam List<Integer> itemIds,
+                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        List<ItemAvailabilityDto> availability = itemService.getAvailability(userId, itemIds, from, to);
+        log.info("Отправлены свободные периоды вещей {} пользователю id:{}", itemIds, userId);
+        return availability;
+    }
+
     @PostMapping("/{itemId}/comment")
     public CommentDto addComment(@RequestHeader("X-Sharer-User-Id") Integer userId,
                                     @RequestBody CommentDto commentDto,
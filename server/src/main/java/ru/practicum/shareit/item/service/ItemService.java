@@ -1,20 +1,28 @@
 package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
     ItemDto addItem(ItemDto item, Integer ownerId);
 
+    List<ItemDto> importItems(List<ItemDto> items, Integer ownerId);
+
     ItemDto updateItem(ItemDto item, Integer ownerId, Integer itemId);
 
     ItemDto getItemById(Integer itemId, Integer userId);
 
     List<ItemDto> getItemsByOwner(Integer ownerId, Integer from, Integer size);
 
-    List<ItemDto> getItemsBySearch(Integer userId, String text, Integer from, Integer size);
+    List<ItemDto> getItemsByIds(Integer userId, List<Integer> itemIds);
+
+    List<ItemDto> getItemsBySearch(Integer userId, String text, Integer from, Integer size, Boolean ranked);
+
+    List<ItemAvailabilityDto> getAvailability(Integer userId, List<Integer> itemIds, LocalDateTime from, LocalDateTime to);
 
     CommentDto createComment(Integer userId, CommentDto commentDto, Integer itemId);
 }
@@ -8,26 +8,35 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.dto.BookingDtoOut;
 import ru.practicum.shareit.booking.model.Booking;
-import ru.practicum.shareit.booking.model.BookingStatus;
-import ru.practicum.shareit.booking.service.BookingDtoMapper;
+import ru.practicum.shareit.booking.service.BookingTimelineCache;
+import ru.practicum.shareit.booking.storage.BookingInterval;
 import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.exceptions.extraExceptions.ItemNotFoundException;
 import ru.practicum.shareit.exceptions.extraExceptions.UserNotFoundException;
 import ru.practicum.shareit.exceptions.extraExceptions.ValidationException;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.FreeWindowDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.CommentRepository;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 import ru.practicum.shareit.user.storage.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static java.util.stream.Collectors.groupingBy;
@@ -36,22 +45,36 @@ import static java.util.stream.Collectors.toList;
 @Slf4j
 @Service
 public class ItemServiceImpl implements ItemService {
+    private static final int MAX_AVAILABILITY_ITEMS = 100;
+    private static final int MAX_BATCH_ITEMS = 100;
+    private static final int MAX_IMPORT_ITEMS = 1000;
+    private static final int MAX_RANKED_SEARCH_WINDOW = 10000;
+
     private final ItemRepository itemRepository;
     private final ItemRequestRepository itemRequestRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
+    private final ItemSearchIndex itemSearchIndex;
+    private final BookingTimelineCache bookingTimelineCache;
+    private final UserExistenceCache userExistenceCache;
 
     public ItemServiceImpl(ItemRepository itemRepository,
                            ItemRequestRepository itemRequestRepository,
                            UserRepository userRepository,
                            BookingRepository bookingRepository,
-                           CommentRepository commentRepository) {
+                           CommentRepository commentRepository,
+                           ItemSearchIndex itemSearchIndex,
+                           BookingTimelineCache bookingTimelineCache,
+                           UserExistenceCache userExistenceCache) {
         this.itemRepository = itemRepository;
         this.itemRequestRepository = itemRequestRepository;
         this.userRepository = userRepository;
         this.bookingRepository = bookingRepository;
         this.commentRepository = commentRepository;
+        this.itemSearchIndex = itemSearchIndex;
+        this.bookingTimelineCache = bookingTimelineCache;
+        this.userExistenceCache = userExistenceCache;
     }
 
     @Override
@@ -61,24 +84,43 @@ public class ItemServiceImpl implements ItemService {
         if (ownerId <= 0) {
             throw new ValidationException("Id владельца должен быть положительным");
         }
-        if (itemDto.getName() == null || itemDto.getDescription() == null || itemDto.getAvailable() == null
-        || "".equals(itemDto.getName()) || "".equals(itemDto.getDescription())) {
-            throw new ValidationException("Поля предмета должны быть заполнены");
-        }
+        validateNewItem(itemDto);
         User user = userRepository.findById(ownerId)
                 .orElseThrow(() -> {
                     return new UserNotFoundException("Пользователь не найден");
                 }
         );
-        Item item = ItemDtoMapper.dtoToItem(itemDto);
-        item.setOwner(user);
-        if (itemDto.getRequestId() != null) {
-            item.setRequest(itemRequestRepository.getReferenceById(itemDto.getRequestId()));
-        }
-        Item resultItem = itemRepository.save(item);
+        Item resultItem = itemRepository.save(toNewItem(itemDto, user));
+        itemSearchIndex.index(resultItem);
         return ItemDtoMapper.itemToDto(resultItem);
     }
 
+    @Override
+    @Transactional
+    public List<ItemDto> importItems(List<ItemDto> itemDtos, Integer ownerId) {
+        log.info("Импорт {} вещей пользователем id:{}", itemDtos.size(), ownerId);
+        if (ownerId <= 0) {
+            throw new ValidationException("Id владельца должен быть положительным");
+        }
+        if (itemDtos.isEmpty() || itemDtos.size() > MAX_IMPORT_ITEMS) {
+            throw new ValidationException("Количество вещей должно быть от 1 до " + MAX_IMPORT_ITEMS);
+        }
+        itemDtos.forEach(this::validateNewItem);
+        User user = userRepository.findById(ownerId)
+                .orElseThrow(() -> {
+                    return new UserNotFoundException("Пользователь не найден");
+                }
+        );
+        // id выдаются из последовательности блоками, поэтому вставки уходят в базу пакетами
+        List<Item> items = itemRepository.saveAll(itemDtos.stream()
+                .map(itemDto -> toNewItem(itemDto, user))
+                .collect(toList()));
+        items.forEach(itemSearchIndex::index);
+        return items.stream()
+                .map(ItemDtoMapper::itemToDto)
+                .collect(toList());
+    }
+
     @Override
     @Transactional
     public ItemDto updateItem(ItemDto itemDto, Integer ownerId, Integer itemId) {
@@ -89,16 +131,15 @@ public class ItemServiceImpl implements ItemService {
         if ("".equals(itemDto.getName()) || "".equals(itemDto.getDescription())) {
             throw new ValidationException("Поля предмета должны быть заполнены");
         }
-        User user = userRepository.findById(ownerId)
-                .orElseThrow(() -> {
-                    return new UserNotFoundException("Владельца вещи с " + itemId + " не существует");
-                });
+        if (!userExistenceCache.exists(ownerId)) {
+            throw new UserNotFoundException("Владельца вещи с " + itemId + " не существует");
+        }
         Item item = itemRepository.findById(itemId)
                 .orElseThrow(() -> {
                             return new ItemNotFoundException("Вещи с " + itemId + " не существует");
                         }
                 );
-        if (!user.equals(item.getOwner())) {
+        if (!item.getOwner().getId().equals(ownerId)) {
             throw new ItemNotFoundException("Пользователь с id = " + ownerId +
                     " не является собственником вещи id = " + itemId);
         }
@@ -115,6 +156,8 @@ public class ItemServiceImpl implements ItemService {
         if (name != null && !name.isBlank()) {
             item.setName(name);
         }
+        itemSearchIndex.index(item);
+        bookingTimelineCache.evict(itemId);
         return ItemDtoMapper.itemToDto(item);
     }
 
@@ -125,11 +168,9 @@ public class ItemServiceImpl implements ItemService {
         if (itemId <= 0) {
             throw new ValidationException("Id должен быть положительным");
         }
-        userRepository.findById(userId)
-                .orElseThrow(() -> {
-                            return new UserNotFoundException("Пользователь не найден");
-                        }
-                );
+        if (!userExistenceCache.exists(userId)) {
+            throw new UserNotFoundException("Пользователь не найден");
+        }
         Optional<Item> itemGet = itemRepository.findById(itemId);
         if (itemGet.isEmpty()) {
             throw new UserNotFoundException("У пользователя с id = " + userId + " не " +
@@ -141,14 +182,11 @@ public class ItemServiceImpl implements ItemService {
         if (!item.getOwner().getId().equals(userId)) {
             return itemDto;
         }
-        List<Booking> bookings = bookingRepository.findAllByItemAndStatusOrderByStartAsc(item, BookingStatus.APPROVED);
-        List<BookingDtoOut> bookingDTOList = bookings
-                .stream()
-                .map(BookingDtoMapper::toBookingOut)
-                .collect(toList());
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingDtoOut> bookingDTOList = bookingTimelineCache.findLastAndNext(List.of(itemId), now);
 
-        itemDto.setLastBooking(getLastBooking(bookingDTOList, LocalDateTime.now()));
-        itemDto.setNextBooking(getNextBooking(bookingDTOList, LocalDateTime.now()));
+        itemDto.setLastBooking(getLastBooking(bookingDTOList, now));
+        itemDto.setNextBooking(getNextBooking(bookingDTOList, now));
         return itemDto;
     }
 
@@ -159,57 +197,143 @@ public class ItemServiceImpl implements ItemService {
         if (ownerId <= 0) {
             throw new ValidationException("Id должен быть положительным");
         }
-        userRepository.findById(ownerId)
-                .orElseThrow(() -> {
-                            return new UserNotFoundException("Пользователь не найден");
-                        }
-                );
+        if (!userExistenceCache.exists(ownerId)) {
+            throw new UserNotFoundException("Пользователь не найден");
+        }
         Pageable pageable = PageRequest.of(from / size, size, Sort.by("id"));
         List<Item> itemList = itemRepository.findAllByOwnerId(ownerId, pageable);
         List<Integer> idList = itemList.stream()
                 .map(Item::getId)
                 .collect(Collectors.toList());
+        if (idList.isEmpty()) {
+            return List.of();
+        }
         Map<Integer, List<CommentDto>> comments = commentRepository.findAllByItemIdIn(idList)
                 .stream()
                 .map(CommentDtoMapper::toCommentDto)
                 .collect(groupingBy(CommentDto::getItemId, toList()));
 
-        Map<Integer, List<BookingDtoOut>> bookings = bookingRepository.findAllByItemInAndStatusOrderByStartAsc(itemList,
-                        BookingStatus.APPROVED)
+        LocalDateTime now = LocalDateTime.now();
+        Map<Integer, List<BookingDtoOut>> bookings = bookingTimelineCache.findLastAndNext(idList, now)
                 .stream()
-                .map(BookingDtoMapper::toBookingOut)
                 .collect(groupingBy(BookingDtoOut::getItemId, toList()));
 
         return itemList
                 .stream()
                 .map(item -> ItemDtoMapper.itemToDto(
                         item,
-                        getLastBooking(bookings.get(item.getId()), LocalDateTime.now()),
+                        getLastBooking(bookings.get(item.getId()), now),
                         comments.get(item.getId()),
-                        getNextBooking(bookings.get(item.getId()), LocalDateTime.now())
+                        getNextBooking(bookings.get(item.getId()), now)
                 ))
                 .collect(toList());
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ItemDto> getItemsBySearch(Integer userId, String text, Integer from, Integer size) {
+    public List<ItemDto> getItemsByIds(Integer userId, List<Integer> itemIds) {
+        log.info("Получение вещей {} пользователем id:{}", itemIds, userId);
+        if (itemIds.isEmpty() || itemIds.size() > MAX_BATCH_ITEMS) {
+            throw new ValidationException("Количество вещей должно быть от 1 до " + MAX_BATCH_ITEMS);
+        }
+        if (!userExistenceCache.exists(userId)) {
+            throw new UserNotFoundException("Пользователь не найден");
+        }
+        List<Integer> ids = itemIds.stream()
+                .distinct()
+                .collect(toList());
+        Map<Integer, Item> items = itemRepository.findAllById(ids)
+                .stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        checkAllFound(ids, items.keySet());
+        Map<Integer, List<CommentDto>> comments = commentRepository.findAllByItemIdIn(ids)
+                .stream()
+                .map(CommentDtoMapper::toCommentDto)
+                .collect(groupingBy(CommentDto::getItemId, toList()));
+
+        // последнее и следующее бронирование видит только владелец вещи
+        List<Integer> ownedIds = items.values()
+                .stream()
+                .filter(item -> item.getOwner().getId().equals(userId))
+                .map(Item::getId)
+                .collect(toList());
+        LocalDateTime now = LocalDateTime.now();
+        Map<Integer, List<BookingDtoOut>> bookings = ownedIds.isEmpty()
+                ? Map.of()
+                : bookingTimelineCache.findLastAndNext(ownedIds, now)
+                .stream()
+                .collect(groupingBy(BookingDtoOut::getItemId, toList()));
+
+        return itemIds.stream()
+                .map(items::get)
+                .map(item -> ItemDtoMapper.itemToDto(
+                        item,
+                        getLastBooking(bookings.get(item.getId()), now),
+                        comments.getOrDefault(item.getId(), List.of()),
+                        getNextBooking(bookings.get(item.getId()), now)
+                ))
+                .collect(toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemDto> getItemsBySearch(Integer userId, String text, Integer from, Integer size, Boolean ranked) {
         log.info("Отправление списка вещей по поисковому запросу: '{}'", text);
         if (text.isBlank()) {
             return List.of();
         }
-        userRepository.findById(userId)
-                .orElseThrow(() -> {
-                            return new UserNotFoundException("Пользователь не найден");
-                        }
-                );
-        Pageable pageable = PageRequest.of(from / size, size);
-        List<Item> itemList = itemRepository.search(text, pageable);
+        if (!userExistenceCache.exists(userId)) {
+            throw new UserNotFoundException("Пользователь не найден");
+        }
+        if (ranked && (long) from + size > MAX_RANKED_SEARCH_WINDOW) {
+            throw new ValidationException("Ранжированный поиск возвращает только первые "
+                    + MAX_RANKED_SEARCH_WINDOW + " результатов");
+        }
+        List<Item> itemList;
+        if (itemSearchIndex.isReady()) {
+            List<Integer> ids = ranked
+                    ? itemSearchIndex.searchRanked(text, from, size)
+                    : itemSearchIndex.search(text, from, size);
+            itemList = findAllByIdInOrder(ids);
+        } else {
+            if (ranked) {
+                log.info("Поисковый индекс недоступен, результаты поиска не ранжируются");
+            }
+            Pageable pageable = PageRequest.of(from / size, size);
+            itemList = itemRepository.search(text, pageable);
+        }
         return itemList.stream()
                 .map(ItemDtoMapper::itemToDto)
                 .collect(toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemAvailabilityDto> getAvailability(Integer userId, List<Integer> itemIds,
+                                                     LocalDateTime from, LocalDateTime to) {
+        log.info("Расчёт свободных периодов вещей {} с {} по {}", itemIds, from, to);
+        if (!from.isBefore(to)) {
+            throw new ValidationException("Начало периода должно быть раньше его окончания");
+        }
+        if (itemIds.isEmpty() || itemIds.size() > MAX_AVAILABILITY_ITEMS) {
+            throw new ValidationException("Количество вещей должно быть от 1 до " + MAX_AVAILABILITY_ITEMS);
+        }
+        if (!userExistenceCache.exists(userId)) {
+            throw new UserNotFoundException("Пользователь не найден");
+        }
+        List<Integer> ids = itemIds.stream()
+                .distinct()
+                .collect(toList());
+        checkAllFound(ids, new HashSet<>(itemRepository.findExistingIds(ids)));
+        Map<Integer, List<BookingInterval>> busy = bookingRepository.findBusyIntervals(ids, from, to)
+                .stream()
+                .collect(groupingBy(BookingInterval::getItemId, toList()));
+        return ids.stream()
+                .map(itemId -> new ItemAvailabilityDto(itemId,
+                        freeWindows(busy.getOrDefault(itemId, List.of()), from, to)))
+                .collect(toList());
+    }
+
     @Override
     @Transactional
     public CommentDto createComment(Integer userId, CommentDto commentDto, Integer itemId) {
@@ -234,7 +358,45 @@ public class ItemServiceImpl implements ItemService {
             throw new ValidationException("У пользователя с id   " + userId + " должно быть хотя бы одно бронирование предмета с id " + itemId);
         }
 
-        return CommentDtoMapper.toCommentDto(commentRepository.save(CommentDtoMapper.toComment(commentDto, item, user)));
+        // время создания проставляется при вставке, поэтому комментарий записывается сразу
+        return CommentDtoMapper.toCommentDto(commentRepository.saveAndFlush(CommentDtoMapper.toComment(commentDto, item, user)));
+    }
+
+    private static void checkAllFound(List<Integer> ids, Set<Integer> found) {
+        if (found.size() != ids.size()) {
+            List<Integer> missing = ids.stream()
+                    .filter(id -> !found.contains(id))
+                    .collect(toList());
+            throw new ItemNotFoundException("Вещи с id " + missing + " не найдены");
+        }
+    }
+
+    private List<Item> findAllByIdInOrder(List<Integer> ids) {
+        Map<Integer, Item> items = itemRepository.findAllById(ids)
+                .stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return ids.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .collect(toList());
+    }
+
+    // интервалы отсортированы по началу, поэтому свободные окна находятся за один проход
+    private static List<FreeWindowDto> freeWindows(List<BookingInterval> busy, LocalDateTime from, LocalDateTime to) {
+        List<FreeWindowDto> free = new ArrayList<>();
+        LocalDateTime cursor = from;
+        for (BookingInterval interval : busy) {
+            if (interval.getStart().isAfter(cursor)) {
+                free.add(new FreeWindowDto(cursor, interval.getStart()));
+            }
+            if (interval.getEnd().isAfter(cursor)) {
+                cursor = interval.getEnd();
+            }
+        }
+        if (cursor.isBefore(to)) {
+            free.add(new FreeWindowDto(cursor, to));
+        }
+        return free;
     }
 
     public List<CommentDto> getAllItemComments(Integer itemId) {
@@ -268,4 +430,20 @@ public class ItemServiceImpl implements ItemService {
                 .findFirst()
                 .orElse(null);
     }
+
+    private void validateNewItem(ItemDto itemDto) {
+        if (itemDto.getName() == null || itemDto.getDescription() == null || itemDto.getAvailable() == null
+        || "".equals(itemDto.getName()) || "".equals(itemDto.getDescription())) {
+            throw new ValidationException("Поля предмета должны быть заполнены");
+        }
+    }
+
+    private Item toNewItem(ItemDto itemDto, User owner) {
+        Item item = ItemDtoMapper.dtoToItem(itemDto);
+        item.setOwner(owner);
+        if (itemDto.getRequestId() != null) {
+            item.setRequest(itemRequestRepository.getReferenceById(itemDto.getRequestId()));
+        }
+        return item;
+    }
 }
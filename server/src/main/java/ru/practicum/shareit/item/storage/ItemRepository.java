@@ -2,11 +2,19 @@ package ru.practicum.shareit.item.storage;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Integer> {
@@ -17,5 +25,23 @@ public interface ItemRepository extends JpaRepository<Item, Integer> {
             "lower(i.description) like lower(concat('%', ?1, '%') ))")
     List<Item> search(String text, Pageable pageable);
 
+    @Query("select i.id as id, i.name as name, i.description as description, i.available as available " +
+            "from Item as i " +
+            "where i.id > ?1 " +
+            "order by i.id")
+    List<ItemSearchDocument> findSearchDocuments(Integer afterId, Pageable pageable);
+
+    @Query("select i.id from Item as i where i.id in ?1")
+    List<Integer> findExistingIds(Collection<Integer> itemIds);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Item> findAllByOwnerId(Integer ownerId, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item as i where i.id = ?1")
+    Optional<Item> findByIdForUpdate(Integer itemId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item as i where i.id in ?1 order by i.id")
+    List<Item> findAllByIdForUpdate(Collection<Integer> itemIds);
 }
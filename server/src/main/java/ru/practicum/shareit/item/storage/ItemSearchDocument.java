@@ -0,0 +1,11 @@
+package ru.practicum.shareit.item.storage;
+
+public interface ItemSearchDocument {
+    Integer getId();
+
+    String getName();
+
+    String getDescription();
+
+    Boolean getAvailable();
+}
@@ -0,0 +1,329 @@
+package ru.practicum.shareit.item.storage;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Индекс в памяти для поиска вещей с той же семантикой, что и {@link ItemRepository#search}:
+ * подстрока без учёта регистра в названии или описании доступной вещи.
+ */
+@Slf4j
+@Component
+public class ItemSearchIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int NAME_TOKEN_WEIGHT = 8;
+    private static final int NAME_SUBSTRING_WEIGHT = 4;
+    private static final int DESCRIPTION_TOKEN_WEIGHT = 2;
+    private static final int DESCRIPTION_SUBSTRING_WEIGHT = 1;
+    private static final Comparator<ScoredId> WORST_FIRST = Comparator.comparingInt(ScoredId::getScore)
+            .thenComparing(ScoredId::getId, Comparator.reverseOrder());
+
+    private final ItemRepository itemRepository;
+    private final boolean enabled;
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private final Map<String, Set<Integer>> tokens = new HashMap<>();
+    private final Map<String, Set<Integer>> trigrams = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // вещи, записанные index() во время перестроения: их строки из пакетов перестроения могут быть старее
+    private Set<Integer> writtenDuringRebuild;
+    private volatile boolean ready;
+
+    public ItemSearchIndex(ItemRepository itemRepository,
+                           @Value("${shareit.search.index.enabled:true}") boolean enabled) {
+        this.itemRepository = itemRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            log.info("Поисковый индекс вещей отключён, используется поиск в БД");
+            return;
+        }
+        ready = false;
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            tokens.clear();
+            trigrams.clear();
+            writtenDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        int lastId = 0;
+        List<ItemSearchDocument> batch;
+        do {
+            batch = itemRepository.findSearchDocuments(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            lock.writeLock().lock();
+            try {
+                for (ItemSearchDocument item : batch) {
+                    if (!writtenDuringRebuild.contains(item.getId())) {
+                        put(new Document(item.getId(), item.getName(), item.getDescription(),
+                                item.getAvailable()));
+                    }
+                    lastId = item.getId();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        lock.writeLock().lock();
+        try {
+            writtenDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        log.info("Поисковый индекс вещей построен, проиндексировано вещей: {}", documents.size());
+    }
+
+    public void index(Item item) {
+        if (!enabled) {
+            return;
+        }
+        Document document = new Document(item.getId(), item.getName(), item.getDescription(), item.getAvailable());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    write(document);
+                }
+            });
+        } else {
+            write(document);
+        }
+    }
+
+    public List<Integer> search(String text, Integer from, Integer size) {
+        String query = text.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            List<Integer> found = new ArrayList<>();
+            for (Integer id : candidates(query)) {
+                if (documents.get(id).matches(query)) {
+                    found.add(id);
+                }
+            }
+            found.sort(Comparator.naturalOrder());
+            return page(found, from, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Integer> searchRanked(String text, Integer from, Integer size) {
+        String query = text.toLowerCase(Locale.ROOT);
+        List<String> queryTokens = splitTokens(query);
+        long limit = (long) from / size * size + size;
+        PriorityQueue<ScoredId> top = new PriorityQueue<>(WORST_FIRST);
+        lock.readLock().lock();
+        try {
+            Collection<Integer> candidates = candidates(query);
+            if (limit - size >= candidates.size()) {
+                return List.of();
+            }
+            for (Integer id : candidates) {
+                Document document = documents.get(id);
+                if (!document.matches(query)) {
+                    continue;
+                }
+                ScoredId scored = new ScoredId(id, document.score(queryTokens));
+                if (top.size() < limit) {
+                    top.add(scored);
+                } else if (WORST_FIRST.compare(scored, top.peek()) > 0) {
+                    top.poll();
+                    top.add(scored);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Integer> ranked = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ranked.add(top.poll().getId());
+        }
+        Collections.reverse(ranked);
+        return page(ranked, from, size);
+    }
+
+    private static List<Integer> page(List<Integer> ids, Integer from, Integer size) {
+        int offset = from / size * size;
+        if (offset >= ids.size()) {
+            return List.of();
+        }
+        return List.copyOf(ids.subList(offset, (int) Math.min((long) offset + size, ids.size())));
+    }
+
+    private Collection<Integer> candidates(String query) {
+        if (query.length() >= GRAM_LENGTH) {
+            List<Set<Integer>> postings = new ArrayList<>();
+            for (String gram : trigramsOf(query)) {
+                Set<Integer> posting = trigrams.get(gram);
+                if (posting == null) {
+                    return List.of();
+                }
+                postings.add(posting);
+            }
+            postings.sort(Comparator.comparingInt(Set::size));
+            Set<Integer> result = new HashSet<>(postings.get(0));
+            for (int i = 1; i < postings.size() && !result.isEmpty(); i++) {
+                result.retainAll(postings.get(i));
+            }
+            return result;
+        }
+        if (TOKEN_SEPARATOR.matcher(query).find()) {
+            return documents.keySet();
+        }
+        // короткий запрос без разделителей может быть только частью одного слова
+        Set<Integer> result = new HashSet<>();
+        tokens.forEach((token, posting) -> {
+            if (token.contains(query)) {
+                result.addAll(posting);
+            }
+        });
+        return result;
+    }
+
+    private void write(Document document) {
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringRebuild != null) {
+                writtenDuringRebuild.add(document.id);
+            }
+            put(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(Document document) {
+        Document previous = documents.put(document.id, document);
+        if (previous != null) {
+            unlink(tokens, previous.tokens(), previous.id);
+            unlink(trigrams, previous.grams(), previous.id);
+        }
+        link(tokens, document.tokens(), document.id);
+        link(trigrams, document.grams(), document.id);
+    }
+
+    private static void link(Map<String, Set<Integer>> postings, Set<String> keys, Integer id) {
+        for (String key : keys) {
+            postings.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+        }
+    }
+
+    private static void unlink(Map<String, Set<Integer>> postings, Set<String> keys, Integer id) {
+        for (String key : keys) {
+            Set<Integer> posting = postings.get(key);
+            if (posting != null && posting.remove(id) && posting.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    private static List<String> splitTokens(String text) {
+        List<String> result = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text)) {
+            if (!token.isEmpty()) {
+                result.add(token);
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> trigramsOf(String text) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            result.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return result;
+    }
+
+    private static final class Document {
+        private final Integer id;
+        private final String name;
+        private final String description;
+        private final boolean available;
+        private final Set<String> nameTokens;
+        private final Set<String> descriptionTokens;
+
+        private Document(Integer id, String name, String description, Boolean available) {
+            this.id = id;
+            this.name = name == null ? "" : name.toLowerCase(Locale.ROOT);
+            this.description = description == null ? "" : description.toLowerCase(Locale.ROOT);
+            this.available = Boolean.TRUE.equals(available);
+            this.nameTokens = Set.copyOf(splitTokens(this.name));
+            this.descriptionTokens = Set.copyOf(splitTokens(this.description));
+        }
+
+        private boolean matches(String query) {
+            return available && (name.contains(query) || description.contains(query));
+        }
+
+        private int score(List<String> queryTokens) {
+            int score = 0;
+            for (String token : queryTokens) {
+                if (nameTokens.contains(token)) {
+                    score += NAME_TOKEN_WEIGHT;
+                } else if (name.contains(token)) {
+                    score += NAME_SUBSTRING_WEIGHT;
+                }
+                if (descriptionTokens.contains(token)) {
+                    score += DESCRIPTION_TOKEN_WEIGHT;
+                } else if (description.contains(token)) {
+                    score += DESCRIPTION_SUBSTRING_WEIGHT;
+                }
+            }
+            return score;
+        }
+
+        private Set<String> tokens() {
+            Set<String> result = new HashSet<>(nameTokens);
+            result.addAll(descriptionTokens);
+            return result;
+        }
+
+        private Set<String> grams() {
+            Set<String> result = trigramsOf(name);
+            result.addAll(trigramsOf(description));
+            return result;
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static final class ScoredId {
+        private final Integer id;
+        private final int score;
+    }
+}
@@ -5,10 +5,13 @@ import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.service.ItemDtoMapper;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.storage.ItemRequestView;
 import ru.practicum.shareit.user.model.User;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -35,4 +38,24 @@ public class ItemRequestMapper {
                 .items(itemsDto)
                 .build();
     }
+
+    /**
+     * Собирает запросы из строк «запрос — вещь», сохраняя порядок запросов.
+     */
+    public List<ItemRequestDto> viewsToDtos(List<ItemRequestView> views) {
+        Map<Integer, ItemRequestDto> requests = new LinkedHashMap<>();
+        for (ItemRequestView view : views) {
+            ItemRequestDto request = requests.computeIfAbsent(view.getId(), id -> ItemRequestDto.builder()
+                    .id(id)
+                    .description(view.getDescription())
+                    .created(view.getCreated())
+                    .items(new ArrayList<>())
+                    .build());
+            if (view.getItemId() != null) {
+                request.getItems().add(new ItemDto(view.getItemId(), view.getItemName(), view.getItemDescription(),
+                        view.getItemAvailable(), view.getId()));
+            }
+        }
+        return new ArrayList<>(requests.values());
+    }
 }
@@ -1,9 +1,8 @@
 package ru.practicum.shareit.request.service;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exceptions.extraExceptions.RequestNotFoundException;
 import ru.practicum.shareit.exceptions.extraExceptions.UserNotFoundException;
 import ru.practicum.shareit.exceptions.extraExceptions.ValidationException;
@@ -12,24 +11,28 @@ import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserDtoMapper;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 import ru.practicum.shareit.user.service.UserService;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class ItemRequestServiceImpl implements ItemRequestService {
     private final UserService userService;
     private final ItemRequestRepository requestRepository;
+    private final UserExistenceCache userExistenceCache;
 
-    public ItemRequestServiceImpl(UserServiceImpl userService, ItemRequestRepository requestRepository) {
+    public ItemRequestServiceImpl(UserServiceImpl userService, ItemRequestRepository requestRepository,
+                                  UserExistenceCache userExistenceCache) {
         this.userService = userService;
         this.requestRepository = requestRepository;
+        this.userExistenceCache = userExistenceCache;
     }
 
     @Override
+    @Transactional
     public ItemRequestDto add(Integer userId, ItemRequestDto itemRequestDto) {
         log.info("Добавление запроса на вещь пользователем id:{}", userId);
         if (itemRequestDto.getDescription() == null) {
@@ -41,38 +44,41 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         }
         ItemRequest request = ItemRequestMapper.dtoToRequest(user, itemRequestDto);
         request.setRequester(user);
-        return ItemRequestMapper.requestToDto(requestRepository.save(request));
+        // время создания проставляется при вставке, поэтому запрос записывается сразу
+        return ItemRequestMapper.requestToDto(requestRepository.saveAndFlush(request));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemRequestDto getRequestById(Integer userId, Integer requestId) {
         log.info("Получение запроса на вещь по id:{}", requestId);
-        userService.getUserById(userId);
-        ItemRequest request = requestRepository.findById(requestId)
-                .orElseThrow(() -> {
-                            return new RequestNotFoundException("Запроса с id:" + requestId + " не существует");
-                        }
-                );
-        return ItemRequestMapper.requestToDto(request);
+        checkUser(userId);
+        List<ItemRequestDto> requests = ItemRequestMapper.viewsToDtos(requestRepository.findRequestWithItems(requestId));
+        if (requests.isEmpty()) {
+            throw new RequestNotFoundException("Запроса с id:" + requestId + " не существует");
+        }
+        return requests.get(0);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemRequestDto> getUserRequests(Integer userId) {
         log.info("Получение списка запросов вещей пользователя id:{}", userId);
-        userService.getUserById(userId);
-        List<ItemRequest> itemRequestList = requestRepository.findAllByRequesterId(userId);
-        return itemRequestList.stream()
-                .map(ItemRequestMapper::requestToDto)
-                .collect(Collectors.toList());
+        checkUser(userId);
+        return ItemRequestMapper.viewsToDtos(requestRepository.findAllWithItemsByRequesterId(userId));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemRequestDto> getAllRequests(Integer userId, Integer from, Integer size) {
-        userService.getUserById(userId);
-        Pageable pageable = PageRequest.of(from / size, size);
-        List<ItemRequest> itemRequestList = requestRepository.findAllByRequester_IdNotOrderByCreatedDesc(userId, pageable);
-        return itemRequestList.stream()
-                .map(ItemRequestMapper::requestToDto)
-                .collect(Collectors.toList());
+        checkUser(userId);
+        return ItemRequestMapper.viewsToDtos(requestRepository.findPageWithItemsByRequesterIdNot(userId,
+                from / size * size, size));
+    }
+
+    private void checkUser(Integer userId) {
+        if (!userExistenceCache.exists(userId)) {
+            throw new UserNotFoundException("Пользователь не найден");
+        }
     }
 }
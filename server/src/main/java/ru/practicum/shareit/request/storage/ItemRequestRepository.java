@@ -1,13 +1,39 @@
 package ru.practicum.shareit.request.storage;
 
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.request.model.ItemRequest;
 
 import java.util.List;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Integer> {
-    List<ItemRequest> findAllByRequesterId(Integer userId);
+    String REQUEST_VIEW_COLUMNS = "SELECT r.id AS \"id\", r.description AS \"description\", r.created AS \"created\", " +
+            "i.id AS \"itemId\", i.name AS \"itemName\", i.description AS \"itemDescription\", " +
+            "i.available AS \"itemAvailable\" ";
 
-    List<ItemRequest> findAllByRequester_IdNotOrderByCreatedDesc(Integer userId, Pageable pageable);
+    String REQUEST_VIEW_ORDER = "ORDER BY r.created DESC, r.id DESC, i.id";
+
+    @Query(value = REQUEST_VIEW_COLUMNS +
+            "FROM requests as r " +
+            "LEFT JOIN items as i ON i.request_id = r.id " +
+            "WHERE r.id = ?1 " +
+            REQUEST_VIEW_ORDER, nativeQuery = true)
+    List<ItemRequestView> findRequestWithItems(Integer requestId);
+
+    @Query(value = REQUEST_VIEW_COLUMNS +
+            "FROM requests as r " +
+            "LEFT JOIN items as i ON i.request_id = r.id " +
+            "WHERE r.requestor_id = ?1 " +
+            REQUEST_VIEW_ORDER, nativeQuery = true)
+    List<ItemRequestView> findAllWithItemsByRequesterId(Integer userId);
+
+    // страница отбирается по запросам до соединения с вещами, иначе лимит считался бы по строкам вещей
+    @Query(value = REQUEST_VIEW_COLUMNS +
+            "FROM (SELECT * FROM requests " +
+            "WHERE requestor_id <> ?1 " +
+            "ORDER BY created DESC, id DESC " +
+            "LIMIT ?3 OFFSET ?2) as r " +
+            "LEFT JOIN items as i ON i.request_id = r.id " +
+            REQUEST_VIEW_ORDER, nativeQuery = true)
+    List<ItemRequestView> findPageWithItemsByRequesterIdNot(Integer userId, Integer offset, Integer limit);
 }
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.request.storage;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка запроса вместе с одной из его вещей; у запроса без вещей поля вещи пустые.
+ */
+public interface ItemRequestView {
+    Integer getId();
+
+    String getDescription();
+
+    LocalDateTime getCreated();
+
+    Integer getItemId();
+
+    String getItemName();
+
+    String getItemDescription();
+
+    Boolean getItemAvailable();
+}
@@ -1,7 +1,11 @@
 package ru.practicum.shareit.user;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,11 +14,16 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.user.dto.UserCursor;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserService;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 
@@ -23,11 +32,15 @@ import java.util.Map;
 @Validated
 @RequestMapping(path = "/users")
 public class UserController {
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final UserService userService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public UserController(UserServiceImpl userService) {
+    public UserController(UserServiceImpl userService, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -53,10 +66,32 @@ public class UserController {
     }
 
     @GetMapping
-    public List<UserDto> getUsers() {
-        List<UserDto> users = userService.getUsers();
-        log.info("Отправлен список всех пользователей");
-        return users;
+    public ResponseEntity<List<UserDto>> getUsers(@RequestParam(value = "from", defaultValue = "0") Integer from,
+                                                  @RequestParam(value = "size", defaultValue = "10") Integer size,
+                                                  @RequestParam(value = "cursor", required = false) String cursor) {
+        List<UserDto> users = userService.getUsers(from, size, cursor);
+        log.info("Отправлен список пользователей from:{} size:{}", from, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!users.isEmpty() && users.size() == size) {
+            response.header(NEXT_CURSOR_HEADER, UserCursor.of(users.get(users.size() - 1)).encode());
+        }
+        return response.body(users);
+    }
+
+    /**
+     * Все пользователи одним JSON-массивом, который пишется в ответ по мере чтения строк из БД.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsers() {
+        log.info("Запущена потоковая выгрузка всех пользователей");
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                userService.streamUsers(user -> writeUser(generator, user));
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @DeleteMapping("/{userId}")
@@ -65,4 +100,12 @@ public class UserController {
         log.info("Удалён пользователь id:" + userId);
         return Map.of("message", "Удалён пользователь id:" + userId);
     }
+
+    private static void writeUser(JsonGenerator generator, UserDto user) {
+        try {
+            generator.writeObject(user);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -0,0 +1,214 @@
+package ru.practicum.shareit.user.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Проверка существования пользователя по id без загрузки его строки.
+ * Подтверждённые id хранятся в ограниченном LRU-кэше ограниченное время. Фильтр Блума по всем id отсекает несуществующих
+ * пользователей без обращения к БД; он знает только о пользователях, созданных через этот экземпляр сервера,
+ * поэтому включается отдельно.
+ */
+@Slf4j
+@Component
+public class UserExistenceCache {
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final int BLOOM_HASHES = 4;
+    private static final int BLOOM_BITS_PER_USER = 10;
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final boolean bloomEnabled;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<Integer, Long> knownIds;
+    private final BitSet bloom;
+    private final int bloomBits;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+    private volatile boolean bloomReady;
+    private long version;
+
+    public UserExistenceCache(UserRepository userRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${shareit.user.existence.enabled:true}") boolean enabled,
+                              @Value("${shareit.user.existence.max-entries:100000}") int maxEntries,
+                              @Value("${shareit.user.existence.ttl-ms:300000}") long ttlMillis,
+                              @Value("${shareit.user.existence.bloom.enabled:false}") boolean bloomEnabled,
+                              @Value("${shareit.user.existence.bloom.expected-users:1000000}") int expectedUsers) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.bloomEnabled = enabled && bloomEnabled;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.knownIds = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Long> eldest) {
+                return size() > UserExistenceCache.this.maxEntries;
+            }
+        };
+        this.bloomBits = this.bloomEnabled ? expectedUsers * BLOOM_BITS_PER_USER : 0;
+        this.bloom = new BitSet(bloomBits);
+        FunctionCounter.builder("shareit.user.existence.hits", hits, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("shareit.user.existence.misses", misses, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("shareit.user.existence.rejections", rejections, AtomicLong::get)
+                .register(meterRegistry);
+        Gauge.builder("shareit.user.existence.size", this, UserExistenceCache::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!bloomEnabled) {
+            return;
+        }
+        bloomReady = false;
+        int lastId = 0;
+        int count = 0;
+        List<Integer> batch;
+        do {
+            batch = userRepository.findIdsAfter(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            synchronized (this) {
+                for (Integer userId : batch) {
+                    addToBloom(userId);
+                    lastId = userId;
+                }
+            }
+            count += batch.size();
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        bloomReady = true;
+        log.info("Фильтр Блума пользователей построен, пользователей: {}", count);
+    }
+
+    /**
+     * Проверяет существование пользователя, обращаясь к БД только за id, которых нет в кэше.
+     */
+    public boolean exists(Integer userId) {
+        if (!enabled) {
+            return userRepository.existsById(userId);
+        }
+        long probeVersion;
+        synchronized (this) {
+            Long expiresAt = knownIds.get(userId);
+            if (expiresAt != null && expiresAt > System.currentTimeMillis()) {
+                hits.incrementAndGet();
+                return true;
+            }
+            if (expiresAt != null) {
+                knownIds.remove(userId);
+            }
+            if (bloomReady && !mightContain(userId)) {
+                rejections.incrementAndGet();
+                return false;
+            }
+            probeVersion = version;
+        }
+        misses.incrementAndGet();
+        boolean exists = userRepository.existsById(userId);
+        if (exists) {
+            synchronized (this) {
+                // пока шла проверка, пользователя могли удалить: такой результат не кэшируем
+                if (version == probeVersion) {
+                    knownIds.put(userId, System.currentTimeMillis() + ttlMillis);
+                }
+            }
+        }
+        return exists;
+    }
+
+    /**
+     * Добавляет id в фильтр сразу, чтобы проверка не отвергла пользователя сразу после фиксации транзакции.
+     */
+    public void onUserCreated(Integer userId) {
+        if (!bloomEnabled) {
+            return;
+        }
+        synchronized (this) {
+            addToBloom(userId);
+        }
+    }
+
+    /**
+     * Удаляет id из кэша сразу и ещё раз после фиксации транзакции, если его успели закэшировать повторно.
+     */
+    public void onUserDeleted(Integer userId) {
+        if (!enabled) {
+            return;
+        }
+        evict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userId);
+                }
+            });
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getRejections() {
+        return rejections.get();
+    }
+
+    public synchronized int size() {
+        return knownIds.size();
+    }
+
+    private synchronized void evict(Integer userId) {
+        version++;
+        knownIds.remove(userId);
+    }
+
+    private void addToBloom(int userId) {
+        int first = mix(userId);
+        int second = mix(first ^ 0x5bd1e995);
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            bloom.set(Math.floorMod(first + i * second, bloomBits));
+        }
+    }
+
+    private boolean mightContain(int userId) {
+        int first = mix(userId);
+        int second = mix(first ^ 0x5bd1e995);
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            if (!bloom.get(Math.floorMod(first + i * second, bloomBits))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mix(int value) {
+        int hash = value;
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
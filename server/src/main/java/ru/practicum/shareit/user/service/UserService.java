@@ -3,6 +3,7 @@ package ru.practicum.shareit.user.service;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService {
     UserDto addUser(UserDto user);
@@ -11,7 +12,9 @@ public interface UserService {
 
     UserDto getUserById(Integer userId);
 
-    List<UserDto> getUsers();
+    List<UserDto> getUsers(Integer from, Integer size, String cursor);
+
+    void streamUsers(Consumer<UserDto> action);
 
     void deleteUser(Integer userId);
 }
@@ -1,24 +1,34 @@
 package ru.practicum.shareit.user.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.service.BookingTimelineCache;
 import ru.practicum.shareit.exceptions.extraExceptions.UserNotFoundException;
 import ru.practicum.shareit.exceptions.extraExceptions.ValidationException;
+import ru.practicum.shareit.user.dto.UserCursor;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final BookingTimelineCache bookingTimelineCache;
+    private final UserExistenceCache userExistenceCache;
 
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, BookingTimelineCache bookingTimelineCache,
+                           UserExistenceCache userExistenceCache) {
         this.userRepository = userRepository;
+        this.bookingTimelineCache = bookingTimelineCache;
+        this.userExistenceCache = userExistenceCache;
     }
 
     @Override
@@ -29,6 +39,7 @@ public class UserServiceImpl implements UserService {
             throw new ValidationException("Email не может быть пустым.");
         }
         User resultUser = userRepository.save(UserDtoMapper.dtoToUser(user));
+        userExistenceCache.onUserCreated(resultUser.getId());
         return UserDtoMapper.userToDto(resultUser);
     }
 
@@ -52,6 +63,7 @@ public class UserServiceImpl implements UserService {
         if (email != null && !email.isBlank()) {
             resultUser.setEmail(email);
         }
+        bookingTimelineCache.evictBooker(userId);
         return UserDtoMapper.userToDto(resultUser);
     }
 
@@ -69,14 +81,23 @@ public class UserServiceImpl implements UserService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<UserDto> getUsers() {
-        log.info("Получение списка всех пользователей.");
-        List<User> usersList = userRepository.findAll();
-        List<UserDto> resultList = new ArrayList<>();
-        for (User user : usersList) {
-            resultList.add(UserDtoMapper.userToDto(user));
+    public List<UserDto> getUsers(Integer from, Integer size, String cursor) {
+        log.info("Получение списка пользователей from:{} size:{} cursor:{}", from, size, cursor);
+        List<User> users = cursor == null
+                ? userRepository.findPage(PageRequest.of(from / size, size))
+                : userRepository.findPageAfter(UserCursor.decode(cursor).getId(), PageRequest.of(0, size));
+        return users.stream()
+                .map(UserDtoMapper::userToDto)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamUsers(Consumer<UserDto> action) {
+        log.info("Потоковая выгрузка всех пользователей.");
+        try (Stream<UserDto> users = userRepository.streamAll()) {
+            users.forEach(action);
         }
-        return resultList;
     }
 
     @Override
@@ -86,6 +107,7 @@ public class UserServiceImpl implements UserService {
         if (userId < 0) {
             throw new UserNotFoundException("Id пользователя должен быть неотрицательным.");
         }
+        userExistenceCache.onUserDeleted(userId);
         userRepository.deleteById(userId);
     }
 }
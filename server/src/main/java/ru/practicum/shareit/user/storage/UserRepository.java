@@ -1,9 +1,35 @@
 package ru.practicum.shareit.user.storage;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer> {
+    @Query("select u.id from User as u where u.id > ?1 order by u.id")
+    List<Integer> findIdsAfter(Integer afterId, Pageable pageable);
+
+    @Query("select u from User as u order by u.id")
+    List<User> findPage(Pageable pageable);
+
+    @Query("select u from User as u where u.id > ?1 order by u.id")
+    List<User> findPageAfter(Integer afterId, Pageable pageable);
+
+    /**
+     * Построчное чтение всех пользователей через курсор JDBC. Строки сразу отображаются в DTO
+     * и не попадают в контекст персистентности, поэтому память не растёт с числом пользователей.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select new ru.practicum.shareit.user.dto.UserDto(u.id, u.name, u.email) from User as u order by u.id")
+    Stream<UserDto> streamAll();
 }
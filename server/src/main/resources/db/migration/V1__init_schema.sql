@@ -1,5 +1,3 @@
-DROP TABLE IF EXISTS requests, comments, bookings, items, users;
-
 -- -----------------------------------------------------
 -- Table users
 -- -----------------------------------------------------
@@ -0,0 +1,22 @@
+-- -----------------------------------------------------
+-- Bookings of a booker, newest first
+-- -----------------------------------------------------
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings (booker_id, start_date DESC, id DESC);
+
+-- -----------------------------------------------------
+-- Bookings of an owner: items by owner, then bookings by item
+-- -----------------------------------------------------
+CREATE INDEX IF NOT EXISTS idx_items_owner ON items (owner_id, id);
+CREATE INDEX IF NOT EXISTS idx_bookings_item_start ON bookings (item_id, start_date DESC, id DESC);
+
+-- -----------------------------------------------------
+-- Last and next approved booking of an item
+-- -----------------------------------------------------
+CREATE INDEX IF NOT EXISTS idx_bookings_item_status_start ON bookings (item_id, status, start_date);
+
+-- -----------------------------------------------------
+-- Comments of an item, requests of a requestor, items of a request
+-- -----------------------------------------------------
+CREATE INDEX IF NOT EXISTS idx_comments_item ON comments (item_id);
+CREATE INDEX IF NOT EXISTS idx_requests_requestor_created ON requests (requestor_id, created DESC);
+CREATE INDEX IF NOT EXISTS idx_items_request ON items (request_id);
@@ -0,0 +1,86 @@
+package ru.practicum.shareit;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.time.LocalDateTime;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Время создания проставляется при вставке строки. Тест идёт без тестовой транзакции, как настоящий запрос,
+ * поэтому отложенная до фиксации вставка вернула бы {@code created: null}.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:created-timestamp")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class CreatedTimestampTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private User booker;
+
+    private Item item;
+
+    private static int counter;
+
+    @BeforeEach
+    void init() {
+        counter++;
+        User owner = userRepository.save(User.builder().name("owner")
+                .email("owner" + counter + "@email.com").build());
+        booker = userRepository.save(User.builder().name("booker")
+                .email("booker" + counter + "@email.com").build());
+        item = itemRepository.save(Item.builder().name("item").description("description").available(true)
+                .owner(owner).build());
+        bookingRepository.save(new Booking(item, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1),
+                booker, BookingStatus.APPROVED));
+    }
+
+    @Test
+    @SneakyThrows
+    void createCommentShouldReturnCreationTime() {
+        mockMvc.perform(post("/items/{itemId}/comment", item.getId())
+                        .header("X-Sharer-User-Id", booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\":\"comment\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").isNotEmpty());
+    }
+
+    @Test
+    @SneakyThrows
+    void addRequestShouldReturnCreationTime() {
+        mockMvc.perform(post("/requests")
+                        .header("X-Sharer-User-Id", booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"request\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").isNotEmpty());
+    }
+}
@@ -0,0 +1,104 @@
+package ru.practicum.shareit.booking;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingBulkResultDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Transactional
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:booking-bulk-statements",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class BookingBulkStatementCountTest {
+    private static final int BOOKINGS = 100;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private BookingService bookingService;
+
+    private Statistics statistics;
+
+    private User owner;
+
+    private User booker;
+
+    private List<Item> items;
+
+    @BeforeEach
+    void init() {
+        owner = User.builder().name("owner").email("owner@email.com").build();
+        booker = User.builder().name("booker").email("booker@email.com").build();
+        entityManager.persist(owner);
+        entityManager.persist(booker);
+        items = IntStream.range(0, 4)
+                .mapToObj(i -> Item.builder().name("item" + i).description("description").available(true)
+                        .owner(owner).build())
+                .collect(Collectors.toList());
+        items.forEach(entityManager::persist);
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void addAllShouldInsertInBatches() {
+        List<BookingBulkResultDto> results = bookingService.addAll(booker.getId(), bookingDtos());
+        entityManager.flush();
+
+        assertEquals(BOOKINGS, results.stream().filter(result -> result.getError() == null).count());
+        assertEquals(BOOKINGS, statistics.getEntityInsertCount());
+        // пользователь, вещи, подтверждённые интервалы, три блока id по 50 и одна вставка, выполняемая пакетами
+        assertEquals(7, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void updateAllShouldUpdateInBatches() {
+        List<Integer> ids = bookingService.addAll(booker.getId(), bookingDtos()).stream()
+                .map(result -> result.getBooking().getId())
+                .collect(Collectors.toList());
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<BookingBulkResultDto> results = bookingService.updateAll(owner.getId(), ids, true);
+        entityManager.flush();
+
+        assertEquals(BOOKINGS, results.stream()
+                .filter(result -> result.getBooking() != null)
+                .filter(result -> result.getBooking().getStatus() == BookingStatus.APPROVED)
+                .count());
+        assertEquals(BOOKINGS, statistics.getEntityUpdateCount());
+        // бронирования, блокировка вещей, подтверждённые интервалы и одно обновление, выполняемое пакетами
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    private List<BookingDto> bookingDtos() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        return IntStream.range(0, BOOKINGS)
+                .mapToObj(i -> new BookingDto(items.get(i % items.size()).getId(), start.plusDays(i),
+                        start.plusDays(i).plusHours(1)))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,94 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.exceptions.extraExceptions.ValidationException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties =
+        "spring.datasource.url=jdbc:h2:mem:booking-concurrency;LOCK_TIMEOUT=10000")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class BookingConcurrencyTest {
+    private static final int BOOKERS = 8;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Test
+    void parallelApprovalsOfOverlappingBookingsShouldApproveOnlyOne() throws Exception {
+        UserDto owner = userService.addUser(UserDto.builder().name("owner").email("owner@email.com").build());
+        ItemDto item = itemService.addItem(ItemDto.builder().name("drill").description("drill").available(true).build(),
+                owner.getId());
+        LocalDateTime start = LocalDateTime.now().plusDays(1L);
+        List<Integer> bookingIds = new ArrayList<>();
+        for (int i = 0; i < BOOKERS; i++) {
+            UserDto booker = userService.addUser(UserDto.builder().name("booker" + i)
+                    .email("booker" + i + "@email.com").build());
+            BookingDto bookingDto = BookingDto.builder()
+                    .itemId(item.getId())
+                    .start(start.plusHours(i))
+                    .end(start.plusHours(i + BOOKERS))
+                    .build();
+            bookingIds.add(bookingService.add(booker.getId(), bookingDto).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(BOOKERS);
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (Integer bookingId : bookingIds) {
+            Callable<Boolean> approve = () -> {
+                ready.await();
+                try {
+                    bookingService.update(owner.getId(), bookingId, true);
+                    return true;
+                } catch (ValidationException e) {
+                    return false;
+                }
+            };
+            results.add(executor.submit(approve));
+        }
+        ready.countDown();
+        int approved = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                approved++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, approved);
+        assertEquals(1, bookingRepository.findAll().stream()
+                .filter(booking -> booking.getStatus() == BookingStatus.APPROVED)
+                .count());
+    }
+}
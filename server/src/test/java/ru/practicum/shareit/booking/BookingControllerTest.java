@@ -7,6 +7,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.BookingBulkResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoOut;
 import ru.practicum.shareit.booking.model.BookingState;
@@ -17,6 +19,7 @@ import ru.practicum.shareit.item.service.ItemDtoMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserDtoMapper;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -25,6 +28,7 @@ import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookingController.class)
@@ -104,6 +108,47 @@ class BookingControllerTest {
         assertEquals(objectMapper.writeValueAsString(bookingDtoOut), result);
     }
 
+    @Test
+    @SneakyThrows
+    void createAllShouldReturnResultPerBooking() {
+        List<BookingBulkResultDto> results = List.of(
+                BookingBulkResultDto.builder().bookingId(1).booking(bookingDtoOut).build(),
+                BookingBulkResultDto.builder().error("Вещь не найдена.").build());
+        when(bookingService.addAll(user.getId(), List.of(bookingDto, bookingDto))).thenReturn(results);
+
+        String result = mockMvc.perform(post("/bookings/bulk")
+                        .contentType("application/json")
+                        .header("X-Sharer-User-Id", user.getId())
+                        .content(objectMapper.writeValueAsString(List.of(bookingDto, bookingDto))))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        assertEquals(objectMapper.writeValueAsString(results), result);
+    }
+
+    @Test
+    @SneakyThrows
+    void updateStatusesShouldReturnResultPerBooking() {
+        List<BookingBulkResultDto> results = List.of(
+                BookingBulkResultDto.builder().bookingId(1).booking(bookingDtoOut).build(),
+                BookingBulkResultDto.builder().bookingId(2).error("Бронь не найдена.").build());
+        when(bookingService.updateAll(user.getId(), List.of(1, 2), true)).thenReturn(results);
+
+        String result = mockMvc.perform(patch("/bookings/bulk")
+                        .contentType("application/json")
+                        .header("X-Sharer-User-Id", user.getId())
+                        .param("approved", "true")
+                        .content(objectMapper.writeValueAsString(List.of(1, 2))))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        assertEquals(objectMapper.writeValueAsString(results), result);
+    }
+
     @Test
     @SneakyThrows
     void getByIdWhenBookingIsValid() {
@@ -127,7 +172,7 @@ class BookingControllerTest {
         Integer size = 10;
         String state = "ALL";
 
-        when(bookingService.findAll(user.getId(), BookingState.ALL.toString(), 0, 10))
+        when(bookingService.findAll(user.getId(), BookingState.ALL.toString(), 0, 10, null))
                 .thenReturn(List.of(bookingDtoOut));
 
         String result = mockMvc.perform(get("/bookings")
@@ -151,7 +196,7 @@ class BookingControllerTest {
         Integer size = 10;
         String state = "ALL";
 
-        when(bookingService.findAllOwner(user.getId(), BookingState.ALL.toString(), 0, 10))
+        when(bookingService.findAllOwner(user.getId(), BookingState.ALL.toString(), 0, 10, null))
                 .thenReturn(List.of(bookingDtoOut));
 
         String result = mockMvc.perform(get("/bookings/owner")
@@ -166,4 +211,20 @@ class BookingControllerTest {
 
         assertEquals(objectMapper.writeValueAsString(List.of(bookingDtoOut)), result);
     }
+
+    @Test
+    @SneakyThrows
+    void getAllWithFullPageShouldReturnNextCursorHeader() {
+        String cursor = new BookingCursor(bookingDtoOut.getStart(), bookingDtoOut.getId()).encode();
+
+        when(bookingService.findAll(user.getId(), BookingState.ALL.toString(), 0, 1, cursor))
+                .thenReturn(List.of(bookingDtoOut));
+
+        mockMvc.perform(get("/bookings")
+                        .param("size", "1")
+                        .param("cursor", cursor)
+                        .header("X-Sharer-User-Id", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", cursor));
+    }
 }
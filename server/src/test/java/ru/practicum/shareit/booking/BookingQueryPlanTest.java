@@ -0,0 +1,134 @@
+package ru.practicum.shareit.booking;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "ru.practicum.shareit.booking.BookingQueryPlanTest$LastStatement")
+public class BookingQueryPlanTest {
+    private static final Pattern POSITIONAL_PARAMETER = Pattern.compile("\\?(\\d+)");
+
+    private static final int NATIVE_QUERIES = 18;
+
+    private static final int JPQL_QUERIES = 12;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Test
+    void nativeBookingQueriesShouldUseIndexes() {
+        int checked = 0;
+        for (Method method : BookingRepository.class.getDeclaredMethods()) {
+            Query query = method.getAnnotation(Query.class);
+            if (query == null || !query.nativeQuery()) {
+                continue;
+            }
+            assertUsesIndexes(method, query.value(), arguments(method, query.value()));
+            checked++;
+        }
+        assertEquals(NATIVE_QUERIES, checked);
+    }
+
+    @Test
+    void jpqlBookingQueriesShouldUseIndexes() throws Exception {
+        int checked = 0;
+        for (Method method : BookingRepository.class.getDeclaredMethods()) {
+            Query query = method.getAnnotation(Query.class);
+            if (query == null || query.nativeQuery()) {
+                continue;
+            }
+            LastStatement.sql = null;
+            method.invoke(bookingRepository, invocationArguments(method));
+            String sql = LastStatement.sql;
+            assertNotNull(sql, method.getName());
+            assertUsesIndexes(method, sql, jdbcArguments(method, query.value(), sql));
+            checked++;
+        }
+        assertEquals(JPQL_QUERIES, checked);
+    }
+
+    private void assertUsesIndexes(Method method, String sql, Object[] arguments) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, arguments);
+        assertFalse(plan.contains(".tableScan"), method.getName() + ":\n" + plan);
+    }
+
+    private static Object[] arguments(Method method, String sql) {
+        int used = 0;
+        Matcher matcher = POSITIONAL_PARAMETER.matcher(sql);
+        while (matcher.find()) {
+            used = Math.max(used, Integer.parseInt(matcher.group(1)));
+        }
+        List<Object> arguments = new ArrayList<>();
+        for (Class<?> type : Arrays.copyOf(method.getParameterTypes(), used)) {
+            arguments.add(sample(type));
+        }
+        return arguments.toArray();
+    }
+
+    private static Object[] invocationArguments(Method method) {
+        return Arrays.stream(method.getParameterTypes())
+                .map(type -> Pageable.class.equals(type) ? PageRequest.of(0, 10) : sample(type))
+                .toArray();
+    }
+
+    /**
+     * Hibernate подставляет параметры в SQL в порядке их появления в JPQL, а постраничный лимит добавляет в конец.
+     */
+    private static Object[] jdbcArguments(Method method, String jpql, String sql) {
+        List<Object> arguments = new ArrayList<>();
+        Matcher matcher = POSITIONAL_PARAMETER.matcher(jpql);
+        while (matcher.find()) {
+            arguments.add(sample(method.getParameterTypes()[Integer.parseInt(matcher.group(1)) - 1]));
+        }
+        long placeholders = sql.chars().filter(c -> c == '?').count();
+        while (arguments.size() < placeholders) {
+            arguments.add(10);
+        }
+        return arguments.toArray();
+    }
+
+    private static Object sample(Class<?> type) {
+        if (type.equals(Integer.class) || Collection.class.isAssignableFrom(type)) {
+            return 1;
+        } else if (type.equals(LocalDateTime.class)) {
+            return LocalDateTime.now();
+        }
+        throw new IllegalStateException("Неизвестный тип параметра: " + type);
+    }
+
+    /**
+     * Запоминает последний SQL, сгенерированный Hibernate.
+     */
+    public static class LastStatement implements StatementInspector {
+        private static volatile String sql;
+
+        @Override
+        public String inspect(String sql) {
+            LastStatement.sql = sql;
+            return sql;
+        }
+    }
+}
@@ -11,15 +11,16 @@ import org.springframework.test.annotation.DirtiesContext;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.BookingView;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.fail;
 
 @DataJpaTest
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
@@ -80,6 +81,7 @@ public class BookingRepositoryTest {
         bookingRepository.save(booking);
         bookingRepository.save(pastBooking);
         bookingRepository.save(futureBooking);
+        testEntityManager.flush();
     }
 
     @AfterEach
@@ -89,24 +91,38 @@ public class BookingRepositoryTest {
 
     @Test
     void findAllByBookerId() {
-        List<Booking> bookings = bookingRepository.findAllBookingsByBookerId(1, PageRequest.of(0, 10));
+        List<BookingView> bookings = bookingRepository.findAllBookingsByBookerId(1, PageRequest.of(0, 10));
 
         assertEquals(bookings.size(), 3);
-        assertEquals(bookings.get(0).getBooker().getId(), 1);
+        assertEquals(bookings.get(0).getBookerId(), 1);
+    }
+
+    @Test
+    void findAllByBookerIdShouldProjectItemAndBooker() {
+        BookingView view = bookingRepository.findAllBookingsByBookerId(user.getId(), PageRequest.of(0, 1)).get(0);
+
+        assertEquals(view.getId(), futureBooking.getId());
+        assertEquals(view.getStatus(), BookingStatus.APPROVED);
+        assertEquals(view.getItemId(), item.getId());
+        assertEquals(view.getItemName(), item.getName());
+        assertEquals(view.getItemDescription(), item.getDescription());
+        assertEquals(view.getItemAvailable(), true);
+        assertEquals(view.getBookerName(), user.getName());
+        assertEquals(view.getBookerEmail(), user.getEmail());
     }
 
     @Test
     void findAllCurrentBookingsByBookerId() {
-        List<Booking> bookings = bookingRepository.findAllCurrentBookingsByBookerId(1, LocalDateTime.now(),
+        List<BookingView> bookings = bookingRepository.findAllCurrentBookingsByBookerId(1, LocalDateTime.now(),
                 PageRequest.of(0, 10));
 
         assertEquals(bookings.size(), 1);
-        assertEquals(bookings.get(0).getBooker().getId(), 1);
+        assertEquals(bookings.get(0).getBookerId(), 1);
     }
 
     @Test
     void findAllPastBookingsByBookerId() {
-        List<Booking> bookings = bookingRepository.findAllPastBookingsByBookerId(1, LocalDateTime.now(),
+        List<BookingView> bookings = bookingRepository.findAllPastBookingsByBookerId(1, LocalDateTime.now(),
                 PageRequest.of(0, 10));
 
         assertEquals(bookings.size(), 1);
@@ -115,7 +131,7 @@ public class BookingRepositoryTest {
 
     @Test
     void findAllFutureBookingsByBookerId() {
-        List<Booking> bookings = bookingRepository.findAllFutureBookingsByBookerId(1, LocalDateTime.now(),
+        List<BookingView> bookings = bookingRepository.findAllFutureBookingsByBookerId(1, LocalDateTime.now(),
                 PageRequest.of(0, 10));
 
         assertEquals(bookings.size(), 1);
@@ -133,7 +149,7 @@ public class BookingRepositoryTest {
                 .build();
 
         bookingRepository.save(waitingBooking);
-        List<Booking> bookings = bookingRepository.findAllWaitingBookingsByBookerId(1, LocalDateTime.now(),
+        List<BookingView> bookings = bookingRepository.findAllWaitingBookingsByBookerId(1, LocalDateTime.now(),
                 PageRequest.of(0, 10));
 
         assertEquals(bookings.size(), 1);
@@ -151,7 +167,7 @@ public class BookingRepositoryTest {
                 .build();
 
         bookingRepository.save(rejectedBooking);
-        List<Booking> bookings = bookingRepository.findAllRejectedBookingsByBookerId(1, LocalDateTime.now(),
+        List<BookingView> bookings = bookingRepository.findAllRejectedBookingsByBookerId(1, LocalDateTime.now(),
                 PageRequest.of(0, 10));
 
         assertEquals(bookings.size(), 1);
@@ -228,6 +244,33 @@ public class BookingRepositoryTest {
         assertEquals(bookings.get(0).getStatus(), BookingStatus.REJECTED);
     }
 
+    @Test
+    void findAllBookingsByBookerIdBefore() {
+        testEntityManager.clear();
+        Booking cursor = bookingRepository.findById(booking.getId()).orElseThrow();
+
+        List<BookingView> bookings = bookingRepository.findAllBookingsByBookerIdBefore(user.getId(), cursor.getStart(),
+                cursor.getId(), PageRequest.of(0, 10));
+
+        assertEquals(bookings.size(), 1);
+        assertEquals(bookings.get(0).getId(), pastBooking.getId());
+    }
+
+    @Test
+    void findAllBookingsByOwnerIdBeforeShouldSeekPastCursor() {
+        testEntityManager.clear();
+        List<Booking> firstPage = bookingRepository.findAllBookingsByOwnerId(owner.getId(), PageRequest.of(0, 2));
+        Booking last = firstPage.get(firstPage.size() - 1);
+
+        List<Booking> nextPage = bookingRepository.findAllBookingsByOwnerIdBefore(owner.getId(), last.getStart(),
+                last.getId(), PageRequest.of(0, 2));
+
+        assertEquals(firstPage.get(0).getId(), futureBooking.getId());
+        assertEquals(firstPage.get(1).getId(), booking.getId());
+        assertEquals(nextPage.size(), 1);
+        assertEquals(nextPage.get(0).getId(), pastBooking.getId());
+    }
+
     @Test
     void findAllByUserBookings() {
         List<Booking> bookings = bookingRepository.findAllByUserBookings(1, 1, LocalDateTime.now());
@@ -237,32 +280,39 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    void getLastBooking() {
-        Optional<Booking> bookingOptional = bookingRepository.getLastBooking(1, LocalDateTime.now());
-        Booking actualBooking;
-
-        if (bookingOptional.isPresent()) {
-            actualBooking = bookingOptional.get();
-
-            assertEquals(actualBooking.getId(), 1);
-        } else {
+    void findLastAndNextBookings() {
+        List<BookingView> bookings = bookingRepository.findLastAndNextBookings(List.of(item.getId()),
+                LocalDateTime.now());
 
-            fail();
-        }
+        assertEquals(bookings.size(), 2);
+        assertEquals(Set.of(bookings.get(0).getId(), bookings.get(1).getId()),
+                Set.of(booking.getId(), futureBooking.getId()));
     }
 
     @Test
-    void getNextBooking() {
-        Optional<Booking> bookingOptional = bookingRepository.getNextBooking(1, LocalDateTime.now());
-        Booking actualBooking;
+    void findLastAndNextBookingsShouldSkipNotApproved() {
+        futureBooking.setStatus(BookingStatus.REJECTED);
+        bookingRepository.save(futureBooking);
 
-        if (bookingOptional.isPresent()) {
-            actualBooking = bookingOptional.get();
+        List<BookingView> bookings = bookingRepository.findLastAndNextBookings(List.of(item.getId()),
+                LocalDateTime.now());
 
-            assertEquals(actualBooking.getId(), 3);
-        } else {
+        assertEquals(bookings.size(), 1);
+        assertEquals(bookings.get(0).getId(), booking.getId());
+    }
 
-            fail();
-        }
+    @Test
+    void findLatestApprovedEndStartingBefore() {
+        testEntityManager.clear();
+        Booking current = bookingRepository.findById(booking.getId()).orElseThrow();
+        Booking next = bookingRepository.findById(futureBooking.getId()).orElseThrow();
+
+        Optional<LocalDateTime> latestEnd = bookingRepository.findLatestApprovedEndStartingBefore(item.getId(),
+                next.getStart(), 0);
+        Optional<LocalDateTime> withoutCurrent = bookingRepository.findLatestApprovedEndStartingBefore(item.getId(),
+                next.getStart(), current.getId());
+
+        assertEquals(latestEnd, Optional.of(current.getEnd()));
+        assertEquals(withoutCurrent.map(end -> end.isBefore(current.getStart())), Optional.of(true));
     }
 }
@@ -5,14 +5,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import ru.practicum.shareit.booking.dto.BookingBulkResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoOut;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.service.BookingDtoMapper;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.booking.service.BookingTimelineCache;
 import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.BookingInterval;
+import ru.practicum.shareit.booking.storage.BookingView;
 import ru.practicum.shareit.exceptions.extraExceptions.BookingNotFoundException;
 import ru.practicum.shareit.exceptions.extraExceptions.ItemNotFoundException;
 import ru.practicum.shareit.exceptions.extraExceptions.UserNotFoundException;
@@ -21,16 +28,23 @@ import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 import ru.practicum.shareit.user.storage.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,6 +59,12 @@ public class BookingServiceTest {
     @Mock
     private BookingRepository bookingRepository;
 
+    @Mock
+    private BookingTimelineCache bookingTimelineCache;
+
+    @Mock
+    private UserExistenceCache userExistenceCache;
+
     @InjectMocks
     private BookingServiceImpl bookingService;
 
@@ -116,6 +136,32 @@ public class BookingServiceTest {
         assertEquals(expectedBookingDtoOut, actualBookingDtoOut);
     }
 
+    @Test
+    void createWhenOverlapsApprovedBookingShouldThrowValidationException() {
+        when(userRepository.findById(userDto.getId())).thenReturn(Optional.ofNullable(user));
+        when(itemRepository.findById(anyInt())).thenReturn(Optional.of(item));
+        when(bookingRepository.findLatestApprovedEndStartingBefore(item.getId(), bookingDto.getEnd(), 0))
+                .thenReturn(Optional.of(bookingDto.getStart().plusHours(1L)));
+
+        ValidationException bookingValidationException = assertThrows(ValidationException.class,
+                () -> bookingService.add(userDto.getId(), bookingDto));
+
+        assertEquals(bookingValidationException.getMessage(), "Вещь уже забронирована на пересекающийся период");
+    }
+
+    @Test
+    void createWhenApprovedBookingEndsAtStartShouldNotOverlap() {
+        when(userRepository.findById(userDto.getId())).thenReturn(Optional.ofNullable(user));
+        when(itemRepository.findById(anyInt())).thenReturn(Optional.of(item));
+        when(bookingRepository.findLatestApprovedEndStartingBefore(item.getId(), bookingDto.getEnd(), 0))
+                .thenReturn(Optional.of(bookingDto.getStart()));
+        when(bookingRepository.save(any(Booking.class))).thenReturn(BookingDtoMapper.toBooking(user, item, bookingDto));
+
+        BookingDtoOut actualBookingDtoOut = bookingService.add(userDto.getId(), bookingDto);
+
+        assertEquals(BookingStatus.WAITING, actualBookingDtoOut.getStatus());
+    }
+
     @Test
     void createWhenEndIsBeforeStartShouldThrowValidationException() {
         when(userRepository.findById(userDto.getId())).thenReturn(Optional.ofNullable(user));
@@ -161,6 +207,18 @@ public class BookingServiceTest {
         assertEquals(BookingStatus.APPROVED, actualBookingDtoOut.getStatus());
     }
 
+    @Test
+    void updateWhenApprovalOverlapsShouldThrowValidationException() {
+        when(bookingRepository.findById(anyInt())).thenReturn(Optional.of(bookingWaiting));
+        when(bookingRepository.findLatestApprovedEndStartingBefore(item.getId(), bookingWaiting.getEnd(),
+                bookingWaiting.getId())).thenReturn(Optional.of(bookingWaiting.getEnd()));
+
+        assertThrows(ValidationException.class,
+                () -> bookingService.update(owner.getId(), bookingWaiting.getId(), true));
+        verify(itemRepository).findByIdForUpdate(item.getId());
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
     @Test
     void updateWhenStatusNotApproved() {
         when(bookingRepository.findById(anyInt())).thenReturn(Optional.of(bookingWaiting));
@@ -171,6 +229,108 @@ public class BookingServiceTest {
         assertEquals(BookingStatus.REJECTED, actualBookingDtoOut.getStatus());
     }
 
+    @Test
+    void createAllShouldReportFailuresPerBooking() {
+        BookingDto missingItem = BookingDto.builder()
+                .itemId(99)
+                .start(bookingDto.getStart())
+                .end(bookingDto.getEnd())
+                .build();
+        BookingDto withoutDates = BookingDto.builder()
+                .itemId(1)
+                .build();
+        when(userRepository.findById(userDto.getId())).thenReturn(Optional.ofNullable(user));
+        when(itemRepository.findAllById(List.of(1, 99))).thenReturn(List.of(item));
+        when(bookingRepository.findApprovedIntervals(any(), any(), any())).thenReturn(List.of());
+
+        List<BookingBulkResultDto> results = bookingService.addAll(userDto.getId(),
+                List.of(bookingDto, bookingDtoEndBeforeStart, missingItem, withoutDates));
+
+        assertEquals(4, results.size());
+        assertEquals(BookingStatus.WAITING, results.get(0).getBooking().getStatus());
+        assertNull(results.get(0).getError());
+        assertEquals("Дата окончания не может быть раньше или равна дате начала", results.get(1).getError());
+        assertEquals("Вещь не найдена.", results.get(2).getError());
+        assertEquals("Вещь и даты бронирования должны быть заполнены", results.get(3).getError());
+        verify(bookingRepository).saveAll(any());
+    }
+
+    @Test
+    void createAllShouldReportNullEntriesAndPastStartsPerBooking() {
+        BookingDto pastStart = BookingDto.builder()
+                .itemId(1)
+                .start(LocalDateTime.now().minusDays(1L))
+                .end(LocalDateTime.now().plusDays(1L))
+                .build();
+        when(userRepository.findById(userDto.getId())).thenReturn(Optional.ofNullable(user));
+        when(itemRepository.findAllById(List.of(1))).thenReturn(List.of(item));
+        when(bookingRepository.findApprovedIntervals(any(), any(), any())).thenReturn(List.of());
+
+        List<BookingBulkResultDto> results = bookingService.addAll(userDto.getId(),
+                Arrays.asList(null, pastStart, bookingDto));
+
+        assertEquals(3, results.size());
+        assertEquals("Вещь и даты бронирования должны быть заполнены", results.get(0).getError());
+        assertEquals("Дата начала бронирования не может быть в прошлом", results.get(1).getError());
+        assertNull(results.get(1).getBooking());
+        assertEquals(BookingStatus.WAITING, results.get(2).getBooking().getStatus());
+    }
+
+    @Test
+    void createAllWhenOverlapsApprovedBookingShouldReportError() {
+        when(userRepository.findById(userDto.getId())).thenReturn(Optional.ofNullable(user));
+        when(itemRepository.findAllById(List.of(1))).thenReturn(List.of(item));
+        when(bookingRepository.findApprovedIntervals(List.of(1), bookingDto.getStart(), bookingDto.getEnd()))
+                .thenReturn(List.of(interval(1, bookingDto.getStart().minusHours(1L), bookingDto.getStart().plusHours(1L))));
+
+        List<BookingBulkResultDto> results = bookingService.addAll(userDto.getId(), List.of(bookingDto));
+
+        assertNull(results.get(0).getBooking());
+        assertEquals("Вещь уже забронирована на пересекающийся период", results.get(0).getError());
+    }
+
+    @Test
+    void createAllWhenTooManyBookingsShouldThrowValidationException() {
+        assertThrows(ValidationException.class, () -> bookingService.addAll(userDto.getId(), List.of()));
+    }
+
+    @Test
+    void updateAllShouldApproveOnlyNonOverlappingBookings() {
+        Booking overlappingWaiting = Booking.builder()
+                .id(2)
+                .start(bookingWaiting.getStart().plusHours(1L))
+                .end(bookingWaiting.getEnd().plusHours(1L))
+                .status(BookingStatus.WAITING)
+                .item(item)
+                .booker(user)
+                .build();
+        when(bookingRepository.findAllByIdIn(List.of(1, 2, 3))).thenReturn(List.of(bookingWaiting, overlappingWaiting));
+        when(bookingRepository.findApprovedIntervals(List.of(1), bookingWaiting.getStart(), overlappingWaiting.getEnd()))
+                .thenReturn(List.of());
+
+        List<BookingBulkResultDto> results = bookingService.updateAll(owner.getId(), List.of(1, 2, 3), true);
+
+        assertEquals(BookingStatus.APPROVED, results.get(0).getBooking().getStatus());
+        assertEquals("Вещь уже забронирована на пересекающийся период", results.get(1).getError());
+        assertEquals(BookingStatus.WAITING, overlappingWaiting.getStatus());
+        assertEquals(3, results.get(2).getBookingId());
+        assertEquals("Бронь не найдена.", results.get(2).getError());
+        verify(itemRepository).findAllByIdForUpdate(List.of(1));
+        verify(bookingRepository).saveAll(List.of(bookingWaiting));
+    }
+
+    @Test
+    void updateAllShouldReportForeignAndNotWaitingBookings() {
+        when(bookingRepository.findAllByIdIn(List.of(1))).thenReturn(List.of(booking));
+
+        List<BookingBulkResultDto> notWaiting = bookingService.updateAll(owner.getId(), List.of(1), false);
+        List<BookingBulkResultDto> foreign = bookingService.updateAll(user.getId(), List.of(1), false);
+
+        assertEquals("Бронь не cо статусом WAITING", notWaiting.get(0).getError());
+        assertEquals("Пользователь не является владельцем", foreign.get(0).getError());
+        verify(itemRepository, never()).findAllByIdForUpdate(any());
+    }
+
     @Test
     void updateShouldStatusNotWaiting() {
         when(bookingRepository.findById(anyInt())).thenReturn(Optional.of(booking));
@@ -224,22 +384,50 @@ public class BookingServiceTest {
     @Test
     void getAllByBookerWhenBookingStateAll() {
         List<BookingDtoOut> expectedBookingsDtoOut = List.of(BookingDtoMapper.toBookingOut(booking));
-        when(userRepository.findById(userDto.getId())).thenReturn(Optional.ofNullable(user));
-        when(bookingRepository.findAllBookingsByBookerId(anyInt(), any(Pageable.class))).thenReturn(List.of(booking));
+        when(userExistenceCache.exists(userDto.getId())).thenReturn(true);
+        when(bookingRepository.findAllBookingsByBookerId(anyInt(), any(Pageable.class))).thenReturn(List.of(view(booking)));
 
-        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAll(user.getId(), "ALL", 0, 10);
+        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAll(user.getId(), "ALL", 0, 10, null);
 
         assertEquals(expectedBookingsDtoOut, actualBookingsDtoOut);
     }
 
+    @Test
+    void getAllByBookerWithCursorShouldSeekAfterCursor() {
+        List<BookingDtoOut> expectedBookingsDtoOut = List.of(BookingDtoMapper.toBookingOut(booking));
+        BookingCursor cursor = new BookingCursor(LocalDateTime.now().plusDays(3L), 7);
+        when(userExistenceCache.exists(userDto.getId())).thenReturn(true);
+        when(bookingRepository.findAllBookingsByBookerIdBefore(user.getId(), cursor.getStart(), cursor.getId(),
+                PageRequest.of(0, 10))).thenReturn(List.of(view(booking)));
+
+        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAll(user.getId(), "ALL", 0, 10, cursor.encode());
+
+        assertEquals(expectedBookingsDtoOut, actualBookingsDtoOut);
+    }
+
+    @Test
+    void getAllByOwnerWithMalformedCursorShouldThrowValidationException() {
+        when(userExistenceCache.exists(owner.getId())).thenReturn(true);
+
+        assertThrows(ValidationException.class,
+                () -> bookingService.findAllOwner(owner.getId(), "ALL", 0, 10, "not-a-cursor"));
+    }
+
+    @Test
+    void bookingCursorShouldSurviveEncoding() {
+        BookingCursor cursor = new BookingCursor(LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123000000), 42);
+
+        assertEquals(cursor, BookingCursor.decode(cursor.encode()));
+    }
+
     @Test
     void getAllByBooker_whenBookingStateCURRENT() {
         List<BookingDtoOut> expectedBookingsDtoOut = List.of(BookingDtoMapper.toBookingOut(booking));
-        when(userRepository.findById(userDto.getId())).thenReturn(Optional.ofNullable(user));
+        when(userExistenceCache.exists(userDto.getId())).thenReturn(true);
         when(bookingRepository.findAllCurrentBookingsByBookerId(anyInt(), any(LocalDateTime.class), any(Pageable.class)))
-                .thenReturn(List.of(booking));
+                .thenReturn(List.of(view(booking)));
 
-        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAll(user.getId(), "CURRENT", 0, 10);
+        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAll(user.getId(), "CURRENT", 0, 10, null);
 
         assertEquals(expectedBookingsDtoOut, actualBookingsDtoOut);
     }
@@ -247,11 +435,11 @@ public class BookingServiceTest {
     @Test
     void getAllByBookerWhenBookingStatePAST() {
         List<BookingDtoOut> expectedBookingsDtoOut = List.of(BookingDtoMapper.toBookingOut(booking));
-        when(userRepository.findById(userDto.getId())).thenReturn(Optional.ofNullable(user));
+        when(userExistenceCache.exists(userDto.getId())).thenReturn(true);
         when(bookingRepository.findAllPastBookingsByBookerId(anyInt(), any(LocalDateTime.class), any(Pageable.class)))
-                .thenReturn(List.of(booking));
+                .thenReturn(List.of(view(booking)));
 
-        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAll(user.getId(), "PAST", 0, 10);
+        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAll(user.getId(), "PAST", 0, 10, null);
 
         assertEquals(expectedBookingsDtoOut, actualBookingsDtoOut);
     }
@@ -259,11 +447,11 @@ public class BookingServiceTest {
     @Test
     void getAllByBookerWhenBookingStateFUTURE() {
         List<BookingDtoOut> expectedBookingsDtoOut = List.of(BookingDtoMapper.toBookingOut(booking));
-        when(userRepository.findById(userDto.getId())).thenReturn(Optional.ofNullable(user));
+        when(userExistenceCache.exists(userDto.getId())).thenReturn(true);
         when(bookingRepository.findAllFutureBookingsByBookerId(anyInt(), any(LocalDateTime.class), any(Pageable.class)))
-                .thenReturn(List.of(booking));
+                .thenReturn(List.of(view(booking)));
 
-        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAll(user.getId(), "FUTURE", 0, 10);
+        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAll(user.getId(), "FUTURE", 0, 10, null);
 
         assertEquals(expectedBookingsDtoOut, actualBookingsDtoOut);
     }
@@ -271,11 +459,11 @@ public class BookingServiceTest {
     @Test
     void getAllByBookerWhenBookingStateWAITING() {
         List<BookingDtoOut> expectedBookingsDtoOut = List.of(BookingDtoMapper.toBookingOut(booking));
-        when(userRepository.findById(userDto.getId())).thenReturn(Optional.ofNullable(user));
+        when(userExistenceCache.exists(userDto.getId())).thenReturn(true);
         when(bookingRepository.findAllWaitingBookingsByBookerId(anyInt(), any(LocalDateTime.class), any(Pageable.class)))
-                .thenReturn(List.of(booking));
+                .thenReturn(List.of(view(booking)));
 
-        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAll(user.getId(), "WAITING", 0, 10);
+        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAll(user.getId(), "WAITING", 0, 10, null);
 
         assertEquals(expectedBookingsDtoOut, actualBookingsDtoOut);
     }
@@ -284,16 +472,16 @@ public class BookingServiceTest {
     @Test
     void getAllByBookerWhenBookingStateIsNotValidShouldThrowIllegalArgumentException() {
         assertThrows(UserNotFoundException.class,
-                () -> bookingService.findAll(user.getId(), "ERROR", 0, 10));
+                () -> bookingService.findAll(user.getId(), "ERROR", 0, 10, null));
     }
 
     @Test
     void getAllByOwnerWhenBookingStateAll() {
         List<BookingDtoOut> expectedBookingsDtoOut = List.of(BookingDtoMapper.toBookingOut(booking));
-        when(userRepository.findById(userDto.getId())).thenReturn(Optional.ofNullable(user));
+        when(userExistenceCache.exists(userDto.getId())).thenReturn(true);
         when(bookingRepository.findAllBookingsByOwnerId(anyInt(), any(Pageable.class))).thenReturn(List.of(booking));
 
-        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAllOwner(user.getId(), "ALL", 0, 10);
+        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAllOwner(user.getId(), "ALL", 0, 10, null);
 
         assertEquals(expectedBookingsDtoOut, actualBookingsDtoOut);
     }
@@ -301,11 +489,11 @@ public class BookingServiceTest {
     @Test
     void getAllByOwnerWhenBookingStateCURRENT() {
         List<BookingDtoOut> expectedBookingsDtoOut = List.of(BookingDtoMapper.toBookingOut(booking));
-        when(userRepository.findById(userDto.getId())).thenReturn(Optional.ofNullable(user));
+        when(userExistenceCache.exists(userDto.getId())).thenReturn(true);
         when(bookingRepository.findAllCurrentBookingsByOwnerId(anyInt(), any(LocalDateTime.class), any(Pageable.class)))
                 .thenReturn(List.of(booking));
 
-        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAllOwner(user.getId(), "CURRENT", 0, 10);
+        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAllOwner(user.getId(), "CURRENT", 0, 10, null);
 
         assertEquals(expectedBookingsDtoOut, actualBookingsDtoOut);
     }
@@ -313,11 +501,11 @@ public class BookingServiceTest {
     @Test
     void getAllByOwnerWhenBookingStatePAST() {
         List<BookingDtoOut> expectedBookingsDtoOut = List.of(BookingDtoMapper.toBookingOut(booking));
-        when(userRepository.findById(userDto.getId())).thenReturn(Optional.ofNullable(user));
+        when(userExistenceCache.exists(userDto.getId())).thenReturn(true);
         when(bookingRepository.findAllPastBookingsByOwnerId(anyInt(), any(LocalDateTime.class), any(Pageable.class)))
                 .thenReturn(List.of(booking));
 
-        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAllOwner(user.getId(), "PAST", 0, 10);
+        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAllOwner(user.getId(), "PAST", 0, 10, null);
 
         assertEquals(expectedBookingsDtoOut, actualBookingsDtoOut);
     }
@@ -325,11 +513,11 @@ public class BookingServiceTest {
     @Test
     void getAllByOwnerWhenBookingStateFUTURE() {
         List<BookingDtoOut> expectedBookingsDtoOut = List.of(BookingDtoMapper.toBookingOut(booking));
-        when(userRepository.findById(userDto.getId())).thenReturn(Optional.ofNullable(user));
+        when(userExistenceCache.exists(userDto.getId())).thenReturn(true);
         when(bookingRepository.findAllFutureBookingsByOwnerId(anyInt(), any(LocalDateTime.class), any(Pageable.class)))
                 .thenReturn(List.of(booking));
 
-        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAllOwner(user.getId(), "FUTURE", 0, 10);
+        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAllOwner(user.getId(), "FUTURE", 0, 10, null);
 
         assertEquals(expectedBookingsDtoOut, actualBookingsDtoOut);
     }
@@ -337,11 +525,11 @@ public class BookingServiceTest {
     @Test
     void getAllByOwnerWhenBookingStateWAITING() {
         List<BookingDtoOut> expectedBookingsDtoOut = List.of(BookingDtoMapper.toBookingOut(booking));
-        when(userRepository.findById(userDto.getId())).thenReturn(Optional.ofNullable(user));
+        when(userExistenceCache.exists(userDto.getId())).thenReturn(true);
         when(bookingRepository.findAllWaitingBookingsByOwnerId(anyInt(), any(LocalDateTime.class), any(Pageable.class)))
                 .thenReturn(List.of(booking));
 
-        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAllOwner(user.getId(), "WAITING", 0, 10);
+        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAllOwner(user.getId(), "WAITING", 0, 10, null);
 
         assertEquals(expectedBookingsDtoOut, actualBookingsDtoOut);
     }
@@ -349,11 +537,11 @@ public class BookingServiceTest {
     @Test
     void getAllByOwnerWhenBookingStateREJECTED() {
         List<BookingDtoOut> expectedBookingsDtoOut = List.of(BookingDtoMapper.toBookingOut(booking));
-        when(userRepository.findById(userDto.getId())).thenReturn(Optional.ofNullable(user));
+        when(userExistenceCache.exists(userDto.getId())).thenReturn(true);
         when(bookingRepository.findAllRejectedBookingsByOwnerId(anyInt(), any(Pageable.class)))
                 .thenReturn(List.of(booking));
 
-        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAllOwner(user.getId(), "REJECTED", 0, 10);
+        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAllOwner(user.getId(), "REJECTED", 0, 10, null);
 
         assertEquals(expectedBookingsDtoOut, actualBookingsDtoOut);
 
@@ -362,20 +550,45 @@ public class BookingServiceTest {
     @Test
     void getAllByBookerWhenBookingStateREJECTED() {
         List<BookingDtoOut> expectedBookingsDtoOut = List.of(BookingDtoMapper.toBookingOut(booking));
-        when(userRepository.findById(userDto.getId())).thenReturn(Optional.ofNullable(user));
+        when(userExistenceCache.exists(userDto.getId())).thenReturn(true);
         when(bookingRepository.findAllRejectedBookingsByBookerId(anyInt(), any(LocalDateTime.class), any(Pageable.class)))
-                .thenReturn(List.of(booking));
+                .thenReturn(List.of(view(booking)));
 
-        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAll(user.getId(), "REJECTED", 0, 10);
+        List<BookingDtoOut> actualBookingsDtoOut = bookingService.findAll(user.getId(), "REJECTED", 0, 10, null);
 
         assertEquals(expectedBookingsDtoOut, actualBookingsDtoOut);
     }
 
     @Test
     void getAllByOwnerWhenBookingStateIsNotValidThenThrowIllegalArgumentException() {
-        when(userRepository.findById(userDto.getId())).thenReturn(Optional.ofNullable(user));
+        when(userExistenceCache.exists(userDto.getId())).thenReturn(true);
 
         assertThrows(IllegalArgumentException.class,
-                () -> bookingService.findAllOwner(user.getId(), "ERROR", 0, 10));
+                () -> bookingService.findAllOwner(user.getId(), "ERROR", 0, 10, null));
+    }
+
+    private static BookingInterval interval(Integer itemId, LocalDateTime start, LocalDateTime end) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("itemId", itemId);
+        row.put("start", start);
+        row.put("end", end);
+        return new SpelAwareProxyProjectionFactory().createProjection(BookingInterval.class, row);
+    }
+
+    private static BookingView view(Booking booking) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", booking.getId());
+        row.put("start", booking.getStart());
+        row.put("end", booking.getEnd());
+        row.put("status", booking.getStatus());
+        row.put("itemId", booking.getItem().getId());
+        row.put("itemName", booking.getItem().getName());
+        row.put("itemDescription", booking.getItem().getDescription());
+        row.put("itemAvailable", booking.getItem().getAvailable());
+        row.put("itemRequestId", null);
+        row.put("bookerId", booking.getBooker().getId());
+        row.put("bookerName", booking.getBooker().getName());
+        row.put("bookerEmail", booking.getBooker().getEmail());
+        return new SpelAwareProxyProjectionFactory().createProjection(BookingView.class, row);
     }
 }
@@ -0,0 +1,115 @@
+package ru.practicum.shareit.booking;
+
+import lombok.SneakyThrows;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDtoOut;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Transactional
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:booking-statements",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class BookingStatementCountTest {
+    private static final int BOOKINGS = 10;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Statistics statistics;
+
+    private User booker;
+
+    private User owner;
+
+    @BeforeEach
+    void init() {
+        booker = User.builder().name("booker").email("booker@email.com").build();
+        entityManager.persist(booker);
+        owner = User.builder().name("owner").email("owner@email.com").build();
+        entityManager.persist(owner);
+        for (int i = 0; i < BOOKINGS; i++) {
+            User requester = User.builder().name("requester" + i).email("requester" + i + "@email.com").build();
+            entityManager.persist(requester);
+            ItemRequest request = ItemRequest.builder().description("request" + i).requester(requester).build();
+            entityManager.persist(request);
+            Item item = Item.builder().name("item" + i).description("description").available(true)
+                    .owner(owner).request(request).build();
+            entityManager.persist(item);
+            entityManager.persist(new Booking(item, LocalDateTime.now().plusDays(i + 1),
+                    LocalDateTime.now().plusDays(i + 2), booker, BookingStatus.APPROVED));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findAllShouldNotLoadItemsAndBookersPerRow() {
+        List<BookingDtoOut> bookings = bookingService.findAll(booker.getId(), "ALL", 0, BOOKINGS, null);
+
+        assertEquals(BOOKINGS, bookings.size());
+        assertEquals("item0", bookings.get(BOOKINGS - 1).getItem().getName());
+        assertEquals("booker", bookings.get(BOOKINGS - 1).getBooker().getName());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findAllWithCursorShouldNotLoadItemsAndBookersPerRow() {
+        BookingDtoOut first = bookingService.findAll(booker.getId(), "ALL", 0, 1, null).get(0);
+        entityManager.clear();
+        statistics.clear();
+
+        List<BookingDtoOut> bookings = bookingService.findAll(booker.getId(), "FUTURE", 0, BOOKINGS,
+                BookingCursor.of(first).encode());
+
+        assertEquals(BOOKINGS - 1, bookings.size());
+        // пользователь уже проверен первым запросом, остаётся только выборка бронирований
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @SneakyThrows
+    void getAllOwnerShouldFetchItemsWithRequestsInOneQuery() {
+        mockMvc.perform(get("/bookings/owner")
+                        .param("size", String.valueOf(BOOKINGS))
+                        .header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(BOOKINGS))
+                .andExpect(jsonPath("$[0].item.requestId").isNotEmpty());
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+}
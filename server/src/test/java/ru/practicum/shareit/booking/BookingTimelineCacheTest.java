@@ -0,0 +1,262 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import ru.practicum.shareit.booking.dto.BookingDtoOut;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingTimelineCache;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.BookingView;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingTimelineCacheTest {
+    private final LocalDateTime now = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private BookingTimelineCache cache;
+
+    @BeforeEach
+    void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = cache(4, 2, 60_000);
+    }
+
+    @Test
+    void findLastAndNextShouldLoadSliceOnceAndAnswerFromIt() {
+        when(bookingRepository.findApprovedSlices(List.of(1), now, 3)).thenReturn(List.of(
+                view(2, 1, now.minusDays(1)),
+                view(3, 1, now.plusDays(1)),
+                view(4, 1, now.plusDays(2))));
+
+        List<BookingDtoOut> first = cache.findLastAndNext(List.of(1), now);
+        List<BookingDtoOut> second = cache.findLastAndNext(List.of(1), now.plusDays(1).plusHours(1));
+
+        assertEquals(List.of(2, 3), ids(first));
+        assertEquals(List.of(3, 4), ids(second));
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(1.0, meterRegistry.get("shareit.booking.timeline.hits").functionCounter().count());
+        verify(bookingRepository, times(1)).findApprovedSlices(anyCollection(), any(), anyInt());
+    }
+
+    @Test
+    void findLastAndNextShouldCacheItemsWithoutBookings() {
+        when(bookingRepository.findApprovedSlices(List.of(1), now, 3)).thenReturn(List.of());
+
+        assertEquals(List.of(), cache.findLastAndNext(List.of(1), now));
+        assertEquals(List.of(), cache.findLastAndNext(List.of(1), now));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void truncatedSliceShouldBeReloadedOnceTimePassesItsEnd() {
+        when(bookingRepository.findApprovedSlices(eq(List.of(1)), any(), eq(3))).thenReturn(List.of(
+                view(1, 1, now.minusDays(1)),
+                view(2, 1, now.plusDays(1)),
+                view(3, 1, now.plusDays(2)),
+                view(4, 1, now.plusDays(3))));
+
+        assertEquals(List.of(1, 2), ids(cache.findLastAndNext(List.of(1), now)));
+        assertEquals(3, cache.bookings());
+        assertEquals(List.of(2, 3), ids(cache.findLastAndNext(List.of(1), now.plusDays(1).plusHours(1))));
+        cache.findLastAndNext(List.of(1), now.plusDays(2).plusHours(1));
+
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void sliceShouldBeReloadedForTimeBeforeItsLastBooking() {
+        when(bookingRepository.findApprovedSlices(eq(List.of(1)), any(), eq(3)))
+                .thenReturn(List.of(view(1, 1, now.minusDays(1))));
+
+        cache.findLastAndNext(List.of(1), now);
+        cache.findLastAndNext(List.of(1), now.minusDays(2));
+
+        assertEquals(0, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void expiredSliceShouldBeReloaded() {
+        BookingTimelineCache expiring = cache(4, 2, 0);
+        when(bookingRepository.findApprovedSlices(List.of(1), now, 3)).thenReturn(List.of());
+
+        expiring.findLastAndNext(List.of(1), now);
+        expiring.findLastAndNext(List.of(1), now);
+
+        assertEquals(0, expiring.getHits());
+        verify(bookingRepository, times(2)).findApprovedSlices(anyCollection(), any(), anyInt());
+    }
+
+    @Test
+    void approvedBookingShouldEvictOnlyItsItem() {
+        when(bookingRepository.findApprovedSlices(eq(List.of(1)), any(), anyInt())).thenReturn(List.of());
+        when(bookingRepository.findApprovedSlices(eq(List.of(2)), any(), anyInt())).thenReturn(List.of());
+        cache.findLastAndNext(List.of(1), now);
+        cache.findLastAndNext(List.of(2), now);
+
+        cache.onBookingChanged(dto(5, 1, now.plusDays(1), BookingStatus.APPROVED, 1));
+        cache.onBookingChanged(dto(6, 2, now.plusDays(1), BookingStatus.WAITING, 1));
+
+        assertEquals(1, cache.size());
+        cache.findLastAndNext(List.of(2), now);
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void cacheShouldEvictLeastRecentlyUsedItem() {
+        when(bookingRepository.findApprovedSlices(anyCollection(), any(), anyInt())).thenReturn(List.of());
+        cache.findLastAndNext(List.of(1), now);
+        cache.findLastAndNext(List.of(2), now);
+        cache.findLastAndNext(List.of(1), now);
+
+        cache.findLastAndNext(List.of(3), now);
+        cache.findLastAndNext(List.of(1), now);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(3, cache.getMisses());
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    void cacheShouldBoundTotalNumberOfBookings() {
+        when(bookingRepository.findApprovedSlices(List.of(1), now, 3)).thenReturn(List.of(
+                view(1, 1, now.minusDays(1)),
+                view(2, 1, now.plusDays(1))));
+        when(bookingRepository.findApprovedSlices(List.of(2), now, 3)).thenReturn(List.of(
+                view(3, 2, now.minusDays(1)),
+                view(4, 2, now.plusDays(1)),
+                view(5, 2, now.plusDays(2))));
+        cache.findLastAndNext(List.of(1), now);
+
+        cache.findLastAndNext(List.of(2), now);
+
+        assertEquals(1, cache.size());
+        assertEquals(3, cache.bookings());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void waitingBookingShouldNotDiscardConcurrentLoad() {
+        when(bookingRepository.findApprovedSlices(List.of(1), now, 3)).thenAnswer(invocation -> {
+            cache.onBookingChanged(dto(5, 1, now.plusDays(1), BookingStatus.WAITING, 1));
+            return List.of(view(1, 1, now.plusDays(1)));
+        });
+
+        cache.findLastAndNext(List.of(1), now);
+        cache.findLastAndNext(List.of(1), now);
+
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void approvedBookingShouldDiscardConcurrentLoadOfItsItemOnly() {
+        when(bookingRepository.findApprovedSlices(List.of(1), now, 3)).thenAnswer(invocation -> {
+            cache.onBookingChanged(dto(5, 1, now.plusDays(2), BookingStatus.APPROVED, 1));
+            return List.of(view(1, 1, now.plusDays(1)));
+        });
+        when(bookingRepository.findApprovedSlices(List.of(2), now, 3)).thenAnswer(invocation -> {
+            cache.onBookingChanged(dto(6, 3, now.plusDays(2), BookingStatus.APPROVED, 1));
+            return List.of(view(2, 2, now.plusDays(1)));
+        });
+
+        cache.findLastAndNext(List.of(1), now);
+        cache.findLastAndNext(List.of(2), now);
+
+        assertEquals(1, cache.size());
+        cache.findLastAndNext(List.of(2), now);
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void evictBookerShouldDropOnlyTimelinesWithThatBooker() {
+        when(bookingRepository.findApprovedSlices(List.of(1), now, 3)).thenReturn(List.of(view(1, 1, now, 7)));
+        when(bookingRepository.findApprovedSlices(List.of(2), now, 3)).thenReturn(List.of(view(2, 2, now, 8)));
+        cache.findLastAndNext(List.of(1), now);
+        cache.findLastAndNext(List.of(2), now);
+
+        cache.evictBooker(7);
+
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.bookings());
+        cache.findLastAndNext(List.of(2), now);
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void disabledCacheShouldQueryRepository() {
+        BookingTimelineCache disabled = new BookingTimelineCache(bookingRepository, meterRegistry, false, 2, 4, 2,
+                60_000);
+        when(bookingRepository.findLastAndNextBookings(List.of(1), now)).thenReturn(List.of(view(1, 1, now)));
+
+        assertEquals(List.of(1), ids(disabled.findLastAndNext(List.of(1), now)));
+        assertEquals(0, disabled.size());
+    }
+
+    private BookingTimelineCache cache(int maxBookings, int maxUpcoming, long ttlMillis) {
+        return new BookingTimelineCache(bookingRepository, meterRegistry, true, 2, maxBookings, maxUpcoming,
+                ttlMillis);
+    }
+
+    private static List<Integer> ids(List<BookingDtoOut> bookings) {
+        return bookings.stream()
+                .map(BookingDtoOut::getId)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private static BookingDtoOut dto(Integer id, Integer itemId, LocalDateTime start, BookingStatus status,
+                                     Integer bookerId) {
+        return new BookingDtoOut(id, new ItemDto(itemId, "item", "description", true, null), start,
+                start.plusHours(1), new UserDto(bookerId, "booker", "booker@email.com"), status);
+    }
+
+    private static BookingView view(Integer id, Integer itemId, LocalDateTime start) {
+        return view(id, itemId, start, 1);
+    }
+
+    private static BookingView view(Integer id, Integer itemId, LocalDateTime start, Integer bookerId) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("start", start);
+        row.put("end", start.plusHours(1));
+        row.put("status", BookingStatus.APPROVED);
+        row.put("itemId", itemId);
+        row.put("itemName", "item");
+        row.put("itemDescription", "description");
+        row.put("itemAvailable", true);
+        row.put("itemRequestId", null);
+        row.put("bookerId", bookerId);
+        row.put("bookerName", "booker");
+        row.put("bookerEmail", "booker@email.com");
+        return new SpelAwareProxyProjectionFactory().createProjection(BookingView.class, row);
+    }
+}
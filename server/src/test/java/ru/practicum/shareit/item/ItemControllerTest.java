@@ -10,12 +10,15 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import ru.practicum.shareit.exceptions.extraExceptions.ValidationException;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.FreeWindowDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemDtoMapper;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -75,6 +78,28 @@ public class ItemControllerTest {
         assertEquals(itemDtoToCreate.getAvailable(), resultItemDto.getAvailable());
     }
 
+    @Test
+    @SneakyThrows
+    void importItemsWhenItemsAreValid() {
+        Integer userId = 1;
+        List<ItemDto> itemDtos = List.of(
+                ItemDto.builder().name("first").description("first description").available(true).build(),
+                ItemDto.builder().name("second").description("second description").available(true).build());
+
+        when(itemService.importItems(itemDtos, userId)).thenReturn(itemDtos);
+
+        String result = mockMvc.perform(post("/items/import")
+                        .contentType("application/json")
+                        .header("X-Sharer-User-Id", userId)
+                        .content(objectMapper.writeValueAsString(itemDtos)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(objectMapper.writeValueAsString(itemDtos), result);
+    }
+
     @Test
     @SneakyThrows
     void createItemWhenItemIsNotValidShouldReturnBadRequest() {
@@ -184,7 +209,7 @@ public class ItemControllerTest {
                 .available(true)
                 .build());
 
-        when(itemService.getItemsBySearch(userId, text, from, size)).thenReturn(itemsDtoToExpect);
+        when(itemService.getItemsBySearch(userId, text, from, size, false)).thenReturn(itemsDtoToExpect);
 
         String result = mockMvc.perform(MockMvcRequestBuilders.get("/items/search", from, size)
                         .header("X-Sharer-User-Id", userId)
@@ -223,4 +248,49 @@ public class ItemControllerTest {
 
         assertEquals(objectMapper.writeValueAsString(commentDtoOut), result);
     }
+
+    @Test
+    @SneakyThrows
+    void getAvailabilityShouldReturnFreeWindows() {
+        Integer userId = 0;
+        LocalDateTime from = LocalDateTime.of(2024, 5, 1, 0, 0);
+        LocalDateTime to = from.plusDays(10);
+        List<ItemAvailabilityDto> availability = List.of(
+                new ItemAvailabilityDto(1, List.of(new FreeWindowDto(from, to))));
+
+        when(itemService.getAvailability(userId, List.of(1, 2), from, to)).thenReturn(availability);
+
+        String result = mockMvc.perform(MockMvcRequestBuilders.get("/items/availability")
+                        .header("X-Sharer-User-Id", userId)
+                        .param("itemIds", "1,2")
+                        .param("from", from.toString())
+                        .param("to", to.toString()))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(objectMapper.writeValueAsString(availability), result);
+    }
+
+    @Test
+    @SneakyThrows
+    void getItemsByIdsShouldReturnItemsInRequestOrder() {
+        Integer userId = 0;
+        List<ItemDto> items = List.of(
+                ItemDto.builder().id(2).name("second").build(),
+                ItemDto.builder().id(1).name("first").build());
+
+        when(itemService.getItemsByIds(userId, List.of(2, 1))).thenReturn(items);
+
+        String result = mockMvc.perform(MockMvcRequestBuilders.get("/items/batch")
+                        .header("X-Sharer-User-Id", userId)
+                        .param("ids", "2,1"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(objectMapper.writeValueAsString(items), result);
+    }
 }
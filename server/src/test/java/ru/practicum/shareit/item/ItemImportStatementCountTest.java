@@ -0,0 +1,64 @@
+package ru.practicum.shareit.item;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Transactional
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:item-import-statements",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class ItemImportStatementCountTest {
+    private static final int ITEMS = 120;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ItemService itemService;
+
+    private Statistics statistics;
+
+    private User owner;
+
+    @BeforeEach
+    void init() {
+        owner = User.builder().name("owner").email("owner@email.com").build();
+        entityManager.persist(owner);
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void importItemsShouldInsertInBatches() {
+        List<ItemDto> itemDtos = IntStream.range(0, ITEMS)
+                .mapToObj(i -> ItemDto.builder().name("item" + i).description("description").available(true).build())
+                .collect(Collectors.toList());
+
+        List<ItemDto> items = itemService.importItems(itemDtos, owner.getId());
+        entityManager.flush();
+
+        assertEquals(ITEMS, items.size());
+        assertEquals(ITEMS, statistics.getEntityInsertCount());
+        // пользователь, три блока id по 50 и одна вставка, выполняемая пакетами, вместо запроса на каждую вещь
+        assertEquals(5, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,119 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.ItemSearchDocument;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemSearchIndexTest {
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    private ItemSearchIndex itemSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        itemSearchIndex = new ItemSearchIndex(itemRepository, true);
+        when(itemRepository.findSearchDocuments(anyInt(), any(Pageable.class))).thenReturn(List.of());
+        itemSearchIndex.rebuild();
+        itemSearchIndex.index(new Item(1, "Дрель", "Простая дрель", true, null, null));
+        itemSearchIndex.index(new Item(2, "Отвертка", "Аккумуляторная отвертка", true, null, null));
+        itemSearchIndex.index(new Item(3, "Дрель ударная", "Мощная", false, null, null));
+        itemSearchIndex.index(new Item(4, "Клей", "Клей для дерева, ДРЕЛЬ не нужна", true, null, null));
+    }
+
+    @Test
+    void searchShouldMatchSubstringIgnoringCaseAndAvailability() {
+        assertTrue(itemSearchIndex.isReady());
+        assertEquals(List.of(1, 4), itemSearchIndex.search("дРеЛь", 0, 10));
+        assertEquals(List.of(2), itemSearchIndex.search("кумулятор", 0, 10));
+        assertEquals(List.of(4), itemSearchIndex.search("для дерева", 0, 10));
+    }
+
+    @Test
+    void searchShouldSupportShortQueries() {
+        assertEquals(List.of(1, 2, 4), itemSearchIndex.search("е", 0, 10));
+        assertEquals(List.of(4), itemSearchIndex.search(", ", 0, 10));
+    }
+
+    @Test
+    void searchShouldPageLikePageRequest() {
+        assertEquals(List.of(1, 2), itemSearchIndex.search("е", 0, 2));
+        assertEquals(List.of(4), itemSearchIndex.search("е", 3, 2));
+        assertEquals(List.of(), itemSearchIndex.search("е", 4, 2));
+    }
+
+    @Test
+    void searchRankedShouldPreferNameAndExactTokenHits() {
+        itemSearchIndex.index(new Item(5, "Дрели набор", "Шуруповерт", true, null, null));
+        itemSearchIndex.index(new Item(6, "Шуруповерт", "Почти дрель", true, null, null));
+
+        assertEquals(List.of(1, 5, 4, 6), itemSearchIndex.searchRanked("ДРЕЛ", 0, 10));
+        assertEquals(List.of(1, 4, 6), itemSearchIndex.searchRanked("дрель", 0, 10));
+    }
+
+    @Test
+    void searchRankedShouldPageOverTopResults() {
+        assertEquals(List.of(1, 4), itemSearchIndex.searchRanked("дрель", 0, 10));
+        assertEquals(List.of(4), itemSearchIndex.searchRanked("дрель", 1, 1));
+        assertEquals(List.of(), itemSearchIndex.searchRanked("дрель", 2, 1));
+    }
+
+    @Test
+    void searchRankedShouldNotAllocateForOffsetBeyondResults() {
+        assertEquals(List.of(), itemSearchIndex.searchRanked("дрель", 2_000_000_000, 10));
+        assertEquals(List.of(), itemSearchIndex.searchRanked("дрель", Integer.MAX_VALUE, 10));
+        assertEquals(List.of(1, 4), itemSearchIndex.searchRanked("дрель", 0, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void indexShouldReplacePreviousVersionOfItem() {
+        itemSearchIndex.index(new Item(1, "Молоток", "Тяжелый", true, null, null));
+
+        assertEquals(List.of(4), itemSearchIndex.search("дрель", 0, 10));
+        assertEquals(List.of(1), itemSearchIndex.search("молот", 0, 10));
+    }
+
+    @Test
+    void rebuildShouldNotOverwriteItemIndexedWhileBatchWasRead() {
+        ItemSearchDocument stale = new SpelAwareProxyProjectionFactory().createProjection(ItemSearchDocument.class,
+                Map.of("id", 1, "name", "Дрель", "description", "Простая дрель", "available", true));
+        when(itemRepository.findSearchDocuments(anyInt(), any(Pageable.class))).thenAnswer(invocation -> {
+            itemSearchIndex.index(new Item(1, "Молоток", "Тяжелый", true, null, null));
+            return List.of(stale);
+        });
+
+        itemSearchIndex.rebuild();
+
+        assertEquals(List.of(1), itemSearchIndex.search("молот", 0, 10));
+        assertEquals(List.of(), itemSearchIndex.search("дрель", 0, 10));
+    }
+
+    @Test
+    void disabledIndexShouldNeverBecomeReady() {
+        ItemSearchIndex disabledIndex = new ItemSearchIndex(itemRepository, false);
+
+        disabledIndex.rebuild();
+
+        assertFalse(disabledIndex.isReady());
+    }
+}
@@ -11,13 +11,19 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import ru.practicum.shareit.booking.dto.BookingDtoOut;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingDtoMapper;
+import ru.practicum.shareit.booking.service.BookingTimelineCache;
+import ru.practicum.shareit.booking.storage.BookingInterval;
 import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.exceptions.extraExceptions.ItemNotFoundException;
 import ru.practicum.shareit.exceptions.extraExceptions.ValidationException;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.FreeWindowDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
@@ -26,21 +32,31 @@ import ru.practicum.shareit.item.service.ItemDtoMapper;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
 import ru.practicum.shareit.item.storage.CommentRepository;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 import ru.practicum.shareit.user.storage.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -58,6 +74,15 @@ public class ItemServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+
+    @Mock
+    private BookingTimelineCache bookingTimelineCache;
+
+    @Mock
+    private UserExistenceCache userExistenceCache;
+
     @InjectMocks
     private ItemServiceImpl itemService;
 
@@ -154,6 +179,32 @@ public class ItemServiceTest {
             .end(LocalDateTime.now().plusDays(20L))
             .build();
 
+    @Test
+    void importItemsShouldSaveAllItemsAtOnce() {
+        List<ItemDto> itemDtos = List.of(
+                ItemDto.builder().name("first").description("first description").available(true).build(),
+                ItemDto.builder().name("second").description("second description").available(false).build());
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(itemRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<ItemDto> actualItemDtos = itemService.importItems(itemDtos, user.getId());
+
+        assertEquals(2, actualItemDtos.size());
+        assertEquals("first", actualItemDtos.get(0).getName());
+        assertFalse(actualItemDtos.get(1).getAvailable());
+        verify(itemRepository, never()).save(any(Item.class));
+    }
+
+    @Test
+    void importItemsWhenItemIsNotValidShouldNotSaveAnything() {
+        List<ItemDto> itemDtos = List.of(
+                ItemDto.builder().name("first").description("first description").available(true).build(),
+                ItemDto.builder().name("").description("second description").available(true).build());
+
+        assertThrows(ValidationException.class, () -> itemService.importItems(itemDtos, user.getId()));
+        verify(itemRepository, never()).saveAll(anyList());
+    }
+
     @Test
     void addNewItemWhenInvoked() {
         Item itemSaveTest = Item.builder()
@@ -173,7 +224,7 @@ public class ItemServiceTest {
 
     @Test
     void getItemById() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userExistenceCache.exists(user.getId())).thenReturn(true);
         when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
 
         ItemDto actualItemDto = itemService.getItemById(item.getId(), user.getId());
@@ -182,6 +233,39 @@ public class ItemServiceTest {
     }
 
 
+    @Test
+    void getItemsByIdsShouldKeepRequestOrderAndShowBookingsOnlyToOwner() {
+        Item foreignItem = Item.builder()
+                .id(2)
+                .name("foreign item")
+                .description("description")
+                .available(true)
+                .owner(user2)
+                .build();
+        when(userExistenceCache.exists(user.getId())).thenReturn(true);
+        when(itemRepository.findAllById(List.of(2, 1))).thenReturn(List.of(item, foreignItem));
+        when(commentRepository.findAllByItemIdIn(List.of(2, 1))).thenReturn(List.of(comment));
+        when(bookingTimelineCache.findLastAndNext(eq(List.of(1)), any(LocalDateTime.class)))
+                .thenReturn(List.of(BookingDtoMapper.toBookingOut(booking)));
+
+        List<ItemDto> items = itemService.getItemsByIds(user.getId(), List.of(2, 1, 2));
+
+        assertEquals(List.of(2, 1, 2), items.stream().map(ItemDto::getId).collect(Collectors.toList()));
+        assertEquals(booking.getId(), items.get(1).getLastBooking().getId());
+        assertEquals(1, items.get(1).getComments().size());
+        assertNull(items.get(0).getLastBooking());
+        assertEquals(List.of(), items.get(0).getComments());
+    }
+
+    @Test
+    void getItemsByIdsWhenItemIsMissingShouldThrowItemNotFoundException() {
+        when(userExistenceCache.exists(user.getId())).thenReturn(true);
+        when(itemRepository.findAllById(List.of(1, 3))).thenReturn(List.of(item));
+
+        assertThrows(ItemNotFoundException.class, () -> itemService.getItemsByIds(user.getId(), List.of(1, 3)));
+        verify(bookingTimelineCache, never()).findLastAndNext(any(), any());
+    }
+
     @Test
     void updateItem() {
         ItemRequest itemRequest = new ItemRequest(1, "description", user, LocalDateTime.now(), null);
@@ -194,7 +278,7 @@ public class ItemServiceTest {
                 .request(itemRequest)
                 .build();
 
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userExistenceCache.exists(user.getId())).thenReturn(true);
         when(itemRepository.findById(anyInt())).thenReturn(Optional.of(updatedItem));
 
         ItemDto savedItem = itemService.updateItem(ItemDtoMapper.itemToDto(updatedItem), user.getId(), itemDto.getId());
@@ -214,7 +298,7 @@ public class ItemServiceTest {
                 .build();
 
         when(itemRepository.findById(anyInt())).thenReturn(Optional.ofNullable(updatedItem));
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userExistenceCache.exists(user.getId())).thenReturn(true);
 
         ItemNotFoundException itemNotFoundException = assertThrows(ItemNotFoundException.class,
                 () -> itemService.updateItem(ItemDtoMapper.itemToDto(updatedItem), user.getId(), itemDto.getId()));
@@ -226,7 +310,7 @@ public class ItemServiceTest {
     @Test
     void updateItemWhenItemIdIsNotValid() {
         when(itemRepository.findById(anyInt())).thenReturn(Optional.empty());
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userExistenceCache.exists(user.getId())).thenReturn(true);
         ItemNotFoundException itemNotFoundException = assertThrows(ItemNotFoundException.class,
                 () -> itemService.updateItem(ItemDtoMapper.itemToDto(item), user.getId(), itemDto.getId()));
         assertEquals(itemNotFoundException.getMessage(), "Вещи с " + item.getId() + " не существует");
@@ -239,14 +323,47 @@ public class ItemServiceTest {
         Integer from = 0;
         Integer size = 10;
 
-        when(userRepository.findById(userId)).thenReturn(Optional.of(new User()));
+        when(userExistenceCache.exists(userId)).thenReturn(true);
         Pageable pageable = PageRequest.of(from / size, size);
         when(itemRepository.search(text, pageable)).thenReturn(Collections.singletonList(new Item()));
 
-        List<ItemDto> result = itemService.getItemsBySearch(userId, text, from, size);
+        List<ItemDto> result = itemService.getItemsBySearch(userId, text, from, size, false);
         assertFalse(result.isEmpty());
     }
 
+    @Test
+    void getItemsBySearch_WhenRankedWindowIsTooLarge_ShouldThrowValidationException() {
+        when(userExistenceCache.exists(user.getId())).thenReturn(true);
+
+        assertThrows(ValidationException.class,
+                () -> itemService.getItemsBySearch(user.getId(), "item", 2_000_000_000, 10, true));
+        assertThrows(ValidationException.class,
+                () -> itemService.getItemsBySearch(user.getId(), "item", Integer.MAX_VALUE, 10, true));
+        verify(itemSearchIndex, never()).searchRanked(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void getItemsBySearch_WhenIndexIsReady_ShouldKeepIndexOrder() {
+        Item secondItem = Item.builder()
+                .id(2)
+                .name("second item")
+                .description("description")
+                .available(true)
+                .owner(user)
+                .build();
+
+        when(userExistenceCache.exists(user.getId())).thenReturn(true);
+        when(itemSearchIndex.isReady()).thenReturn(true);
+        when(itemSearchIndex.search("item", 0, 10)).thenReturn(List.of(2, 1));
+        when(itemRepository.findAllById(List.of(2, 1))).thenReturn(List.of(item, secondItem));
+
+        List<ItemDto> result = itemService.getItemsBySearch(user.getId(), "item", 0, 10, false);
+
+        assertEquals(2, result.size());
+        assertEquals(2, result.get(0).getId());
+        assertEquals(1, result.get(1).getId());
+    }
+
     @Test
     void getAllComments() {
         List<CommentDto> expectedCommentsDto = List.of(CommentDtoMapper.toCommentDto(comment));
@@ -261,7 +378,7 @@ public class ItemServiceTest {
     @Test
     void searchItems() {
         Page<Item> items = new PageImpl<>(List.of(item));
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userExistenceCache.exists(user.getId())).thenReturn(true);
         when(itemRepository.findAllByOwnerId(anyInt(), any(Pageable.class))).thenReturn(List.of(item));
 
         List<ItemDto> actualItemsDto = itemService.getItemsByOwner(1, 0, 10);
@@ -278,7 +395,7 @@ public class ItemServiceTest {
         when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
         when(bookingRepository.findAllByUserBookings(anyInt(), anyInt(), any(LocalDateTime.class)))
                 .thenReturn(List.of(booking));
-        when(commentRepository.save(any(Comment.class))).thenReturn(comment);
+        when(commentRepository.saveAndFlush(any(Comment.class))).thenReturn(comment);
 
         CommentDto actualCommentDto = itemService.createComment(user.getId(), CommentDtoMapper.toCommentDto(comment), item.getId());
 
@@ -347,4 +464,51 @@ public class ItemServiceTest {
         // Assert
         assertEquals(1, nextBooking.getId());
     }
+
+    @Test
+    void getAvailabilityShouldMergeOverlappingAndAdjacentIntervals() {
+        LocalDateTime from = LocalDateTime.of(2024, 5, 1, 0, 0);
+        LocalDateTime to = from.plusDays(10);
+        when(userExistenceCache.exists(user.getId())).thenReturn(true);
+        when(itemRepository.findExistingIds(List.of(1, 2))).thenReturn(List.of(1, 2));
+        when(bookingRepository.findBusyIntervals(List.of(1, 2), from, to)).thenReturn(List.of(
+                interval(1, from.minusDays(1), from.plusDays(1)),
+                interval(1, from.plusDays(2), from.plusDays(4)),
+                interval(1, from.plusDays(3), from.plusDays(5)),
+                interval(1, from.plusDays(5), from.plusDays(6)),
+                interval(1, from.plusDays(8), to.plusDays(1))));
+
+        List<ItemAvailabilityDto> availability = itemService.getAvailability(user.getId(), List.of(1, 2, 1), from, to);
+
+        assertEquals(2, availability.size());
+        assertEquals(List.of(
+                new FreeWindowDto(from.plusDays(1), from.plusDays(2)),
+                new FreeWindowDto(from.plusDays(6), from.plusDays(8))), availability.get(0).getFree());
+        assertEquals(List.of(new FreeWindowDto(from, to)), availability.get(1).getFree());
+    }
+
+    @Test
+    void getAvailabilityWhenPeriodIsEmptyShouldThrowValidationException() {
+        LocalDateTime from = LocalDateTime.of(2024, 5, 1, 0, 0);
+
+        assertThrows(ValidationException.class,
+                () -> itemService.getAvailability(user.getId(), List.of(1), from, from));
+        verify(bookingRepository, never()).findBusyIntervals(any(), any(), any());
+    }
+
+    @Test
+    void getAvailabilityWhenItemIsMissingShouldThrowItemNotFoundException() {
+        LocalDateTime from = LocalDateTime.of(2024, 5, 1, 0, 0);
+        when(userExistenceCache.exists(user.getId())).thenReturn(true);
+        when(itemRepository.findExistingIds(List.of(1, 2))).thenReturn(List.of(1));
+
+        ItemNotFoundException exception = assertThrows(ItemNotFoundException.class,
+                () -> itemService.getAvailability(user.getId(), List.of(1, 2), from, from.plusDays(1)));
+        assertEquals("Вещи с id [2] не найдены", exception.getMessage());
+    }
+
+    private static BookingInterval interval(Integer itemId, LocalDateTime start, LocalDateTime end) {
+        return new SpelAwareProxyProjectionFactory().createProjection(BookingInterval.class,
+                Map.of("itemId", itemId, "start", start, "end", end));
+    }
 }
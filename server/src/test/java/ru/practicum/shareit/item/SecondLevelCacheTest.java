@@ -0,0 +1,91 @@
+package ru.practicum.shareit.item;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:second-level-cache")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class SecondLevelCacheTest {
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ItemService itemService;
+
+    private Statistics statistics;
+
+    private UserDto owner;
+
+    private ItemDto item;
+
+    private static int counter;
+
+    @BeforeEach
+    void init() {
+        counter++;
+        owner = userService.addUser(UserDto.builder().name("owner").email("owner" + counter + "@email.com").build());
+        item = itemService.addItem(ItemDto.builder().name("item").description("description").available(true).build(),
+                owner.getId());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getItemByIdShouldReadItemAndOwnerFromCache() {
+        itemService.getItemById(item.getId(), owner.getId());
+        itemService.getItemById(item.getId(), owner.getId());
+
+        assertTrue(statistics.getDomainDataRegionStatistics(Item.class.getName()).getHitCount() >= 2);
+        assertTrue(statistics.getDomainDataRegionStatistics(User.class.getName()).getHitCount() >= 2);
+    }
+
+    @Test
+    void updateItemShouldNotLeaveStaleItemInCache() {
+        itemService.getItemById(item.getId(), owner.getId());
+
+        itemService.updateItem(ItemDto.builder().name("updated").build(), owner.getId(), item.getId());
+
+        assertEquals("updated", itemService.getItemById(item.getId(), owner.getId()).getName());
+    }
+
+    @Test
+    void updateUserShouldNotLeaveStaleUserInCache() {
+        userService.getUserById(owner.getId());
+
+        userService.updateUser(owner.getId(), UserDto.builder().name("updated").build());
+
+        assertEquals("updated", userService.getUserById(owner.getId()).getName());
+    }
+
+    @Test
+    void getItemsByOwnerShouldUseQueryCacheUntilItemsChange() {
+        itemService.getItemsByOwner(owner.getId(), 0, 10);
+        itemService.getItemsByOwner(owner.getId(), 0, 10);
+
+        assertEquals(1, statistics.getQueryCacheHitCount());
+
+        itemService.addItem(ItemDto.builder().name("second").description("description").available(true).build(),
+                owner.getId());
+
+        assertEquals(2, itemService.getItemsByOwner(owner.getId(), 0, 10).size());
+    }
+}
@@ -9,12 +9,14 @@ import org.springframework.test.annotation.DirtiesContext;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.request.storage.ItemRequestView;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
@@ -68,8 +70,35 @@ public class RequestRepositoryTest {
     }
 
     @Test
-    void findAllByRequesterIdOrderByCreated() {
-        List<ItemRequest> requests = requestRepository.findAllByRequesterId(1);
+    void findPageWithItemsShouldLimitRequestsNotRows() {
+        ItemRequest newest = ItemRequest.builder()
+                .description("newest request")
+                .requester(user1)
+                .build();
+        testEntityManager.persist(newest);
+        for (int i = 0; i < 3; i++) {
+            testEntityManager.persist(Item.builder()
+                    .name("item" + i)
+                    .description("description")
+                    .available(true)
+                    .owner(user1)
+                    .request(newest)
+                    .build());
+        }
+        testEntityManager.flush();
+
+        List<ItemRequestView> firstPage = requestRepository.findPageWithItemsByRequesterIdNot(user2.getId(), 0, 1);
+        List<ItemRequestView> secondPage = requestRepository.findPageWithItemsByRequesterIdNot(user2.getId(), 1, 1);
+
+        assertEquals(3, firstPage.size());
+        assertTrue(firstPage.stream().allMatch(view -> view.getId().equals(newest.getId())));
+        assertEquals(1, secondPage.size());
+        assertEquals(request1.getId(), secondPage.get(0).getId());
+    }
+
+    @Test
+    void findAllWithItemsByRequesterId() {
+        List<ItemRequestView> requests = requestRepository.findAllWithItemsByRequesterId(user1.getId());
 
         assertEquals(requests.size(), 1);
         assertEquals(requests.get(0).getDescription(), "request description");
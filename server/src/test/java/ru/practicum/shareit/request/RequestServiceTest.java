@@ -5,25 +5,28 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import ru.practicum.shareit.exceptions.extraExceptions.RequestNotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.service.ItemRequestMapper;
 import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.request.storage.ItemRequestView;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +38,9 @@ public class RequestServiceTest {
     @Mock
     private UserServiceImpl userService;
 
+    @Mock
+    private UserExistenceCache userExistenceCache;
+
     @InjectMocks
     private ItemRequestServiceImpl requestService;
 
@@ -68,7 +74,7 @@ public class RequestServiceTest {
     void addNewRequest() {
         ItemRequestDto requestDto = ItemRequestMapper.requestToDto(request);
         when(userService.getUserById(user.getId())).thenReturn(userDto);
-        when(requestRepository.save(any(ItemRequest.class))).thenReturn(request);
+        when(requestRepository.saveAndFlush(any(ItemRequest.class))).thenReturn(request);
 
         ItemRequestDto actualRequestDto = requestService.add(user.getId(), requestDto);
 
@@ -77,9 +83,9 @@ public class RequestServiceTest {
 
     @Test
     void getUserRequests() {
-        List<ItemRequestDto> expectedRequestsDto = List.of(ItemRequestMapper.requestToDto(request));
-        when(userService.getUserById(user.getId())).thenReturn(userDto);
-        when(requestRepository.findAllByRequesterId(userDto.getId())).thenReturn(List.of(request));
+        List<ItemRequestDto> expectedRequestsDto = List.of(expectedRequestDto());
+        when(userExistenceCache.exists(user.getId())).thenReturn(true);
+        when(requestRepository.findAllWithItemsByRequesterId(userDto.getId())).thenReturn(List.of(view(item)));
 
         List<ItemRequestDto> actualRequestsDto = requestService.getUserRequests(userDto.getId());
 
@@ -88,21 +94,31 @@ public class RequestServiceTest {
 
     @Test
     void getAllRequests() {
-        List<ItemRequestDto> expectedRequestsDto = List.of(ItemRequestMapper.requestToDto(request));
-        when(userService.getUserById(user.getId())).thenReturn(userDto);
-        when(requestRepository.findAllByRequester_IdNotOrderByCreatedDesc(anyInt(), any(PageRequest.class)))
-                .thenReturn(List.of(request));
+        List<ItemRequestDto> expectedRequestsDto = List.of(expectedRequestDto());
+        when(userExistenceCache.exists(user.getId())).thenReturn(true);
+        when(requestRepository.findPageWithItemsByRequesterIdNot(userDto.getId(), 10, 10))
+                .thenReturn(List.of(view(item)));
 
-        List<ItemRequestDto> actualRequestsDto = requestService.getAllRequests(userDto.getId(), 0, 10);
+        List<ItemRequestDto> actualRequestsDto = requestService.getAllRequests(userDto.getId(), 15, 10);
 
         assertEquals(expectedRequestsDto, actualRequestsDto);
     }
 
+    @Test
+    void getRequestByIdWhenRequestHasNoItemsShouldReturnEmptyItems() {
+        when(userExistenceCache.exists(user.getId())).thenReturn(true);
+        when(requestRepository.findRequestWithItems(request.getId())).thenReturn(List.of(view(null)));
+
+        ItemRequestDto actualRequestDto = requestService.getRequestById(userDto.getId(), request.getId());
+
+        assertEquals(List.of(), actualRequestDto.getItems());
+    }
+
     @Test
     void getRequestById() {
-        ItemRequestDto expectedRequestDto = ItemRequestMapper.requestToDto(request);
-        when(userService.getUserById(user.getId())).thenReturn(userDto);
-        when(requestRepository.findById(request.getId())).thenReturn(Optional.of(request));
+        ItemRequestDto expectedRequestDto = expectedRequestDto();
+        when(userExistenceCache.exists(user.getId())).thenReturn(true);
+        when(requestRepository.findRequestWithItems(request.getId())).thenReturn(List.of(view(item)));
 
         ItemRequestDto actualRequestDto = requestService.getRequestById(userDto.getId(), request.getId());
 
@@ -111,8 +127,8 @@ public class RequestServiceTest {
 
     @Test
     void getRequestByIdWhenRequestIdIsNotValidShouldThrowObjectNotFoundException() {
-        when(userService.getUserById(user.getId())).thenReturn(userDto);
-        when(requestRepository.findById(request.getId())).thenReturn(Optional.empty());
+        when(userExistenceCache.exists(user.getId())).thenReturn(true);
+        when(requestRepository.findRequestWithItems(request.getId())).thenReturn(List.of());
 
         RequestNotFoundException requestNotFoundException = assertThrows(RequestNotFoundException.class,
                 () -> requestService.getRequestById(userDto.getId(), request.getId()));
@@ -120,4 +136,25 @@ public class RequestServiceTest {
         assertEquals(requestNotFoundException.getMessage(), String.format("Запроса с id:%s" +
                 " не существует", request.getId()));
     }
+
+    private ItemRequestDto expectedRequestDto() {
+        return ItemRequestDto.builder()
+                .id(request.getId())
+                .description(request.getDescription())
+                .items(List.of(new ItemDto(item.getId(), item.getName(), item.getDescription(), item.getAvailable(),
+                        request.getId())))
+                .build();
+    }
+
+    private ItemRequestView view(Item item) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", request.getId());
+        row.put("description", request.getDescription());
+        row.put("created", request.getCreated());
+        row.put("itemId", item == null ? null : item.getId());
+        row.put("itemName", item == null ? null : item.getName());
+        row.put("itemDescription", item == null ? null : item.getDescription());
+        row.put("itemAvailable", item == null ? null : item.getAvailable());
+        return new SpelAwareProxyProjectionFactory().createProjection(ItemRequestView.class, row);
+    }
 }
@@ -0,0 +1,108 @@
+package ru.practicum.shareit.request;
+
+import lombok.SneakyThrows;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Transactional
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:request-statements",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class RequestStatementCountTest {
+    private static final int REQUESTS = 50;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Statistics statistics;
+
+    private User viewer;
+
+    private User requester;
+
+    private ItemRequest request;
+
+    @BeforeEach
+    void init() {
+        viewer = User.builder().name("viewer").email("viewer@email.com").build();
+        entityManager.persist(viewer);
+        User owner = User.builder().name("owner").email("owner@email.com").build();
+        entityManager.persist(owner);
+        for (int i = 0; i < REQUESTS; i++) {
+            requester = User.builder().name("requester" + i).email("requester" + i + "@email.com").build();
+            entityManager.persist(requester);
+            request = ItemRequest.builder().description("request" + i).requester(requester).build();
+            entityManager.persist(request);
+            for (int j = 0; j < 2; j++) {
+                Item item = Item.builder().name("item" + i + "-" + j).description("description").available(true)
+                        .owner(owner).request(request).build();
+                entityManager.persist(item);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @SneakyThrows
+    void getAllRequestsShouldLoadItemsOfPageInOneQuery() {
+        mockMvc.perform(get("/requests/all")
+                        .param("size", String.valueOf(REQUESTS))
+                        .header("X-Sharer-User-Id", viewer.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(REQUESTS))
+                .andExpect(jsonPath("$[0].items.length()").value(2))
+                .andExpect(jsonPath("$[" + (REQUESTS - 1) + "].items.length()").value(2));
+
+        // пользователь и страница запросов вместе с их вещами
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @SneakyThrows
+    void getUserRequestsShouldLoadRequestsWithItemsInOneQuery() {
+        mockMvc.perform(get("/requests")
+                        .header("X-Sharer-User-Id", requester.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].items.length()").value(2));
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @SneakyThrows
+    void getRequestByIdShouldLoadRequestWithItemsInOneQuery() {
+        mockMvc.perform(get("/requests/{requestId}", request.getId())
+                        .header("X-Sharer-User-Id", viewer.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2));
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+}
@@ -7,20 +7,28 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import ru.practicum.shareit.exceptions.extraExceptions.ValidationException;
+import ru.practicum.shareit.user.dto.UserCursor;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = UserController.class)
@@ -111,7 +119,7 @@ public class UserControllerTest {
     void findAll() {
         List<UserDto> usersDtoToExpect = List.of(UserDto.builder().name("name").email("email@email.com").build());
 
-        when(userService.getUsers()).thenReturn(usersDtoToExpect);
+        when(userService.getUsers(0, 10, null)).thenReturn(usersDtoToExpect);
 
         String result = mockMvc.perform(MockMvcRequestBuilders.get("/users"))
                 .andExpect(status().isOk())
@@ -122,6 +130,43 @@ public class UserControllerTest {
         assertEquals(objectMapper.writeValueAsString(usersDtoToExpect), result);
     }
 
+    @Test
+    @SneakyThrows
+    void findAllWhenPageIsFullShouldReturnNextCursor() {
+        List<UserDto> usersDtoToExpect = List.of(UserDto.builder().id(7).name("name").email("email@email.com").build());
+
+        when(userService.getUsers(0, 1, null)).thenReturn(usersDtoToExpect);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/users")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", new UserCursor(7).encode()));
+    }
+
+    @Test
+    @SneakyThrows
+    void streamShouldWriteUsersAsJsonArray() {
+        List<UserDto> users = List.of(
+                UserDto.builder().id(1).name("first").email("first@email.com").build(),
+                UserDto.builder().id(2).name("second").email("second@email.com").build());
+        doAnswer(invocation -> {
+            Consumer<UserDto> action = invocation.getArgument(0);
+            users.forEach(action);
+            return null;
+        }).when(userService).streamUsers(any());
+
+        MvcResult asyncResult = mockMvc.perform(MockMvcRequestBuilders.get("/users/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String result = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(objectMapper.writeValueAsString(users), result);
+    }
+
     @Test
     @SneakyThrows
     void delete() {
@@ -0,0 +1,149 @@
+package ru.practicum.shareit.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.user.service.UserExistenceCache;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class UserExistenceCacheTest {
+    @Mock
+    private UserRepository userRepository;
+
+    @Test
+    void existsShouldProbeDatabaseOnceForKnownUser() {
+        UserExistenceCache cache = new UserExistenceCache(userRepository, new SimpleMeterRegistry(),
+                true, 10, 60_000, false, 100);
+        when(userRepository.existsById(1)).thenReturn(true);
+
+        assertTrue(cache.exists(1));
+        assertTrue(cache.exists(1));
+
+        verify(userRepository, times(1)).existsById(1);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void existsShouldNotCacheMissingUser() {
+        UserExistenceCache cache = new UserExistenceCache(userRepository, new SimpleMeterRegistry(),
+                true, 10, 60_000, false, 100);
+        when(userRepository.existsById(2)).thenReturn(false);
+
+        assertFalse(cache.exists(2));
+        assertFalse(cache.exists(2));
+
+        verify(userRepository, times(2)).existsById(2);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void onUserDeletedShouldEvictUser() {
+        UserExistenceCache cache = new UserExistenceCache(userRepository, new SimpleMeterRegistry(),
+                true, 10, 60_000, false, 100);
+        when(userRepository.existsById(1)).thenReturn(true, false);
+
+        assertTrue(cache.exists(1));
+        cache.onUserDeleted(1);
+
+        assertFalse(cache.exists(1));
+        verify(userRepository, times(2)).existsById(1);
+    }
+
+    @Test
+    void existsShouldNotCacheProbeRacingWithDelete() {
+        UserExistenceCache cache = new UserExistenceCache(userRepository, new SimpleMeterRegistry(),
+                true, 10, 60_000, false, 100);
+        when(userRepository.existsById(1)).thenAnswer(invocation -> {
+            cache.onUserDeleted(1);
+            return true;
+        }).thenReturn(false);
+
+        assertTrue(cache.exists(1));
+
+        assertEquals(0, cache.size());
+        assertFalse(cache.exists(1));
+    }
+
+    @Test
+    void existsShouldProbeAgainAfterEntryExpires() {
+        UserExistenceCache cache = new UserExistenceCache(userRepository, new SimpleMeterRegistry(),
+                true, 10, 0, false, 100);
+        when(userRepository.existsById(1)).thenReturn(true, false);
+
+        assertTrue(cache.exists(1));
+
+        assertFalse(cache.exists(1));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void existsShouldKeepOnlyMaxEntries() {
+        UserExistenceCache cache = new UserExistenceCache(userRepository, new SimpleMeterRegistry(),
+                true, 2, 60_000, false, 100);
+        when(userRepository.existsById(anyInt())).thenReturn(true);
+
+        cache.exists(1);
+        cache.exists(2);
+        cache.exists(3);
+
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void bloomFilterShouldRejectUnknownUserWithoutDatabase() {
+        UserExistenceCache cache = new UserExistenceCache(userRepository, new SimpleMeterRegistry(),
+                true, 10, 60_000, true, 100);
+        when(userRepository.findIdsAfter(any(Integer.class), any(Pageable.class))).thenReturn(List.of(1, 2, 3));
+        when(userRepository.existsById(2)).thenReturn(true);
+        cache.rebuild();
+
+        assertTrue(cache.exists(2));
+        assertFalse(cache.exists(1_000_000));
+
+        verify(userRepository, never()).existsById(1_000_000);
+        assertEquals(1, cache.getRejections());
+    }
+
+    @Test
+    void bloomFilterShouldAcceptUserCreatedAfterRebuild() {
+        UserExistenceCache cache = new UserExistenceCache(userRepository, new SimpleMeterRegistry(),
+                true, 10, 60_000, true, 100);
+        when(userRepository.findIdsAfter(any(Integer.class), any(Pageable.class))).thenReturn(List.of());
+        when(userRepository.existsById(7)).thenReturn(true);
+        cache.rebuild();
+
+        cache.onUserCreated(7);
+
+        assertTrue(cache.exists(7));
+    }
+
+    @Test
+    void disabledCacheShouldAlwaysProbeDatabase() {
+        UserExistenceCache cache = new UserExistenceCache(userRepository, new SimpleMeterRegistry(),
+                false, 10, 60_000, true, 100);
+        when(userRepository.existsById(1)).thenReturn(true);
+
+        assertTrue(cache.exists(1));
+        assertTrue(cache.exists(1));
+
+        verify(userRepository, times(2)).existsById(1);
+        assertEquals(0, cache.size());
+    }
+}
@@ -5,10 +5,17 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
 
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @DataJpaTest
@@ -43,4 +50,34 @@ public class UserRepositoryTest {
 
         assertEquals(returnUser, user);
     }
+
+    @Test
+    public void findPageAfterShouldReturnUsersAfterIdInIdOrder() {
+        List<User> users = saveUsers(5);
+
+        List<User> page = userRepository.findPageAfter(users.get(1).getId(), PageRequest.of(0, 2));
+
+        assertEquals(List.of(users.get(2), users.get(3)), page);
+    }
+
+    @Test
+    public void streamAllShouldReturnEveryUserInIdOrder() {
+        List<User> users = saveUsers(3);
+
+        List<Integer> streamedIds;
+        try (Stream<UserDto> stream = userRepository.streamAll()) {
+            streamedIds = stream.map(UserDto::getId).collect(Collectors.toList());
+        }
+
+        assertEquals(users.stream().map(User::getId).collect(Collectors.toList()), streamedIds);
+    }
+
+    private List<User> saveUsers(int count) {
+        List<User> users = IntStream.range(0, count)
+                .mapToObj(i -> userRepository.save(User.builder().name("name" + i).email("email" + i + "@email.com").build()))
+                .collect(Collectors.toList());
+        testEntityManager.flush();
+        testEntityManager.clear();
+        return users;
+    }
 }
@@ -5,20 +5,29 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.service.BookingTimelineCache;
 import ru.practicum.shareit.exceptions.extraExceptions.UserNotFoundException;
+import ru.practicum.shareit.exceptions.extraExceptions.ValidationException;
+import ru.practicum.shareit.user.dto.UserCursor;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserDtoMapper;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 import ru.practicum.shareit.user.storage.UserRepository;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -28,6 +37,12 @@ public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private BookingTimelineCache bookingTimelineCache;
+
+    @Mock
+    private UserExistenceCache userExistenceCache;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -102,14 +117,39 @@ public class UserServiceTest {
                 .map(UserDtoMapper::userToDto)
                 .collect(Collectors.toList());
 
-        when(userRepository.findAll()).thenReturn(expectedUsers);
+        when(userRepository.findPage(PageRequest.of(0, 10))).thenReturn(expectedUsers);
 
-        List<UserDto> actualUsersDto = userService.getUsers();
+        List<UserDto> actualUsersDto = userService.getUsers(0, 10, null);
 
         assertEquals(actualUsersDto.size(), 1);
         assertEquals(actualUsersDto, expectedUserDto);
     }
 
+    @Test
+    void getUsersWithCursorShouldSeekAfterCursor() {
+        when(userRepository.findPageAfter(1, PageRequest.of(0, 10))).thenReturn(List.of(user));
+
+        List<UserDto> actualUsersDto = userService.getUsers(0, 10, new UserCursor(1).encode());
+
+        assertEquals(List.of(userDto), actualUsersDto);
+        verify(userRepository, never()).findPage(any());
+    }
+
+    @Test
+    void getUsersWithMalformedCursorShouldThrowValidationException() {
+        assertThrows(ValidationException.class, () -> userService.getUsers(0, 10, "не курсор"));
+    }
+
+    @Test
+    void streamUsersShouldPassEveryUserToAction() {
+        when(userRepository.streamAll()).thenReturn(Stream.of(userDto));
+        List<UserDto> streamed = new ArrayList<>();
+
+        userService.streamUsers(streamed::add);
+
+        assertEquals(List.of(userDto), streamed);
+    }
+
     @Test
     void deleteUser() {
         Integer userId = 1;